@@ -0,0 +1,61 @@
+package com.irened.bitereviewapi.benchmark;
+
+import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import com.irened.bitereviewapi.model.User;
+
+import java.util.Random;
+
+/**
+ * Deterministic generators for the entities used by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static String zipCode(int index) {
+        return String.format("%05d", 10000 + index);
+    }
+
+    static String displayName(int index) {
+        return "user_" + index;
+    }
+
+    static User user(int index, int zipCodes) {
+        User user = new User();
+        user.setDisplayName(displayName(index));
+        user.setCity("Boston");
+        user.setState("MA");
+        user.setZipCode(zipCode(index % zipCodes));
+        user.setInterestedInPeanutAllergies(index % 2 == 0);
+        user.setInterestedInEggAllergies(index % 3 == 0);
+        user.setInterestedInDairyAllergies(index % 5 == 0);
+        return user;
+    }
+
+    static Restaurant restaurant(int index, int zipCodes, Random random) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setName("Restaurant " + index);
+        restaurant.setZipCode(zipCode(index % zipCodes));
+        restaurant.setPeanutScore(random.nextInt(400) / 100.0 + 1);
+        restaurant.setEggScore(random.nextInt(400) / 100.0 + 1);
+        restaurant.setDairyScore(random.nextInt(400) / 100.0 + 1);
+        restaurant.setOverallScore(random.nextInt(400) / 100.0 + 1);
+        return restaurant;
+    }
+
+    // A review with each score left out about a fifth of the time, as reviewers often do
+    static DiningReview review(String displayName, long restaurantId, ReviewStatus status, Random random) {
+        DiningReview review = new DiningReview();
+        review.setDisplayName(displayName);
+        review.setRestaurantId(restaurantId);
+        review.setPeanutScore(random.nextInt(5) == 0 ? null : random.nextInt(5) + 1);
+        review.setEggScore(random.nextInt(5) == 0 ? null : random.nextInt(5) + 1);
+        review.setDairyScore(random.nextInt(5) == 0 ? null : random.nextInt(5) + 1);
+        review.setCommentary("Benchmark review with a short comment about the food and the staff.");
+        review.setStatus(status);
+        return review;
+    }
+}
@@ -0,0 +1,114 @@
+package com.irened.bitereviewapi.benchmark;
+
+import com.irened.bitereviewapi.model.RestaurantSummary;
+import com.irened.bitereviewapi.repository.RestaurantRepository;
+import com.irened.bitereviewapi.service.RestaurantNameIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restaurant name lookups served by the in-memory trigram index against the database: a partial
+ * name search against a LIKE '%...%' scan, and the duplicate check at insert against the exact
+ * name and zip code query. The seeded restaurants are renamed from a small vocabulary, so names
+ * share words the way real ones do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NameSearchBenchmark {
+
+    @Param({"5000"})
+    private int restaurants;
+
+    private static final String[] FIRST_WORDS = {
+            "Golden", "Lucky", "Little", "Blue", "Royal", "Happy", "Old Town", "Joe's", "Mama's", "Green",
+            "Silver", "Red", "Harbor", "Corner", "Sunny"
+    };
+    private static final String[] SECOND_WORDS = {
+            "Dragon", "Pizza", "Bistro", "Grill", "Diner", "Noodle House", "Taqueria", "Sushi Bar", "Bakery",
+            "Kitchen", "Cafe", "Steakhouse", "Curry House", "Trattoria", "Deli"
+    };
+    private static final double MIN_SIMILARITY = 0.6;
+
+    private SeededApplication application;
+    private RestaurantNameIndex restaurantNameIndex;
+    private RestaurantRepository restaurantRepository;
+    private JdbcTemplate jdbcTemplate;
+    private final List<String> names = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = new SeededApplication(0, restaurants, 0, 100);
+        restaurantNameIndex = application.bean(RestaurantNameIndex.class);
+        restaurantRepository = application.bean(RestaurantRepository.class);
+        jdbcTemplate = application.bean(JdbcTemplate.class);
+
+        List<Object[]> renames = new ArrayList<>();
+        for (int i = 0; i < application.restaurantIds.size(); i++) {
+            String name = FIRST_WORDS[i % FIRST_WORDS.length] + " "
+                    + SECOND_WORDS[i / FIRST_WORDS.length % SECOND_WORDS.length] + " " + (i + 1);
+            names.add(name);
+            renames.add(new Object[]{name, application.restaurantIds.get(i)});
+        }
+        jdbcTemplate.batchUpdate("UPDATE restaurant SET name = ? WHERE id = ?", renames);
+        restaurantNameIndex.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    private String randomName() {
+        return names.get(ThreadLocalRandom.current().nextInt(names.size()));
+    }
+
+    @Benchmark
+    public List<RestaurantSummary> indexPrefixSearch() {
+        return restaurantNameIndex.search("golden dra", null, null, null, MIN_SIMILARITY, 20);
+    }
+
+    @Benchmark
+    public List<RestaurantSummary> indexMisspelledSearch() {
+        return restaurantNameIndex.search("goldn dragn", null, null, null, MIN_SIMILARITY, 20);
+    }
+
+    // The SQL alternative, which has to scan every name
+    @Benchmark
+    public List<Long> likeScanSearch() {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM restaurant WHERE LOWER(name) LIKE ? ORDER BY id LIMIT 20", Long.class, "%golden dra%");
+    }
+
+    @Benchmark
+    public Optional<RestaurantSummary> indexDuplicateCheck() {
+        String name = randomName();
+        return restaurantNameIndex.findSimilar(name.replace("'", ""), BenchmarkData.zipCode(0), 1.0);
+    }
+
+    @Benchmark
+    public boolean exactDuplicateQuery() {
+        return restaurantRepository.findByNameAndZipCode(randomName(), BenchmarkData.zipCode(0)).isPresent();
+    }
+}
@@ -0,0 +1,94 @@
+package com.irened.bitereviewapi.benchmark;
+
+import com.irened.bitereviewapi.model.DiningReviewSummary;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import com.irened.bitereviewapi.model.User;
+import com.irened.bitereviewapi.repository.DiningReviewRepository;
+import com.irened.bitereviewapi.repository.RestaurantRepository;
+import com.irened.bitereviewapi.repository.ScoreTotals;
+import com.irened.bitereviewapi.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository queries behind the busiest endpoints, against an embedded H2 database
+ * seeded with a realistic number of users, restaurants and reviews.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryQueryBenchmark {
+
+    @Param({"100000"})
+    private int reviews;
+
+    private SeededApplication application;
+    private DiningReviewRepository diningReviewRepository;
+    private RestaurantRepository restaurantRepository;
+    private UserRepository userRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = new SeededApplication(10_000, 5_000, reviews, 100);
+        diningReviewRepository = application.bean(DiningReviewRepository.class);
+        restaurantRepository = application.bean(RestaurantRepository.class);
+        userRepository = application.bean(UserRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    private long randomRestaurantId() {
+        return application.restaurantIds.get(ThreadLocalRandom.current().nextInt(application.restaurantIds.size()));
+    }
+
+    @Benchmark
+    public Optional<User> findUserByDisplayName() {
+        return userRepository.findByDisplayName(
+                BenchmarkData.displayName(ThreadLocalRandom.current().nextInt(application.users)));
+    }
+
+    @Benchmark
+    public List<DiningReviewSummary> pendingReviewsFirstPage() {
+        return diningReviewRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                ReviewStatus.PENDING, 0L, Limit.of(100));
+    }
+
+    @Benchmark
+    public List<DiningReviewSummary> approvedReviewsForRestaurant() {
+        return diningReviewRepository.findByRestaurantIdAndStatusAndIdGreaterThanOrderByIdAsc(
+                randomRestaurantId(), ReviewStatus.APPROVED, 0L, Limit.of(100));
+    }
+
+    @Benchmark
+    public Optional<ScoreTotals> sumApprovedScoresForRestaurant() {
+        return diningReviewRepository.sumScoresByRestaurantIdAndStatus(randomRestaurantId(), ReviewStatus.APPROVED);
+    }
+
+    @Benchmark
+    public Object findRestaurantById() {
+        return restaurantRepository.findById(randomRestaurantId());
+    }
+}
@@ -0,0 +1,75 @@
+package com.irened.bitereviewapi.benchmark;
+
+import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import com.irened.bitereviewapi.service.ScoreAggregates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of updating a restaurant's scores after an approval: re-summing every approved review,
+ * as the original recompute did, against applying one review to the running totals.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoreAggregationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int approvedReviews;
+
+    private List<DiningReview> reviews;
+    private DiningReview approvedReview;
+    private Restaurant restaurant;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        reviews = new ArrayList<>(approvedReviews);
+        for (int i = 0; i < approvedReviews; i++) {
+            reviews.add(BenchmarkData.review("user", 1L, ReviewStatus.APPROVED, random));
+        }
+        approvedReview = BenchmarkData.review("user", 1L, ReviewStatus.APPROVED, random);
+
+        restaurant = new Restaurant();
+        for (DiningReview review : reviews) {
+            ScoreAggregates.accumulate(restaurant, review, 1);
+        }
+    }
+
+    @Benchmark
+    public Restaurant fullRescan() {
+        Restaurant rescanned = new Restaurant();
+        for (DiningReview review : reviews) {
+            ScoreAggregates.accumulate(rescanned, review, 1);
+        }
+        ScoreAggregates.refreshAverages(rescanned);
+        return rescanned;
+    }
+
+    @Benchmark
+    public Restaurant incremental() {
+        ScoreAggregates.accumulate(restaurant, approvedReview, 1);
+        ScoreAggregates.refreshAverages(restaurant);
+        ScoreAggregates.accumulate(restaurant, approvedReview, -1);  // Keep the totals stable between calls
+        return restaurant;
+    }
+}
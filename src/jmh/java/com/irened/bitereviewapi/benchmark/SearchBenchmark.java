@@ -0,0 +1,141 @@
+package com.irened.bitereviewapi.benchmark;
+
+import com.irened.bitereviewapi.model.Allergy;
+import com.irened.bitereviewapi.model.AllergyRanking;
+import com.irened.bitereviewapi.model.RestaurantSummary;
+import com.irened.bitereviewapi.service.RestaurantLeaderboard;
+import com.irened.bitereviewapi.service.RestaurantSearchIndex;
+import com.irened.bitereviewapi.service.ZipCodeGrid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zip-code allergy search served by the materialized leaderboard table against the in-memory
+ * ranking index. The radius searches place the synthetic zip codes on a square grid about three
+ * miles apart, so a five-mile radius covers up to nine zip codes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"5000"})
+    private int restaurants;
+
+    @Param({"100"})
+    private int zipCodes;
+
+    private static final AllergyRanking PEANUT = AllergyRanking.of(Allergy.PEANUT);
+    private static final AllergyRanking PEANUT_AND_DAIRY = AllergyRanking.fromName("peanut,dairy").orElseThrow();
+    private static final double GRID_SPACING_DEGREES = 0.04;  // About three miles at 42 degrees north
+    private static final double RADIUS_MILES = 5;
+
+    private SeededApplication application;
+    private RestaurantLeaderboard restaurantLeaderboard;
+    private RestaurantSearchIndex restaurantSearchIndex;
+    private ZipCodeGrid zipCodeGrid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = new SeededApplication(1_000, restaurants, 0, zipCodes);
+        restaurantLeaderboard = application.bean(RestaurantLeaderboard.class);
+        restaurantSearchIndex = application.bean(RestaurantSearchIndex.class);
+
+        int side = (int) Math.ceil(Math.sqrt(zipCodes));
+        double[] latitudes = new double[zipCodes];
+        double[] longitudes = new double[zipCodes];
+        for (int i = 0; i < zipCodes; i++) {
+            latitudes[i] = 42 + (i / side) * GRID_SPACING_DEGREES;
+            longitudes[i] = -71 + (i % side) * GRID_SPACING_DEGREES * 4 / 3;  // Longitude degrees are shorter
+        }
+        zipCodeGrid = new ZipCodeGrid(IntStream.range(0, zipCodes).mapToObj(BenchmarkData::zipCode).toList(),
+                latitudes, longitudes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    private String randomZipCode() {
+        return BenchmarkData.zipCode(ThreadLocalRandom.current().nextInt(zipCodes));
+    }
+
+    @Benchmark
+    public List<RestaurantSummary> leaderboardSearch() {
+        return restaurantLeaderboard.search(randomZipCode(), PEANUT, 0, null);
+    }
+
+    @Benchmark
+    public List<RestaurantSummary> leaderboardSearchTop10() {
+        return restaurantLeaderboard.search(randomZipCode(), PEANUT, 0, 10);
+    }
+
+    @Benchmark
+    public List<RestaurantSummary> leaderboardSearchSecondPage() {
+        return restaurantLeaderboard.search(randomZipCode(), PEANUT, 10, 10);
+    }
+
+    @Benchmark
+    public List<RestaurantSummary> indexSearch() {
+        return restaurantSearchIndex.search(randomZipCode(), PEANUT, 0, null);
+    }
+
+    @Benchmark
+    public List<RestaurantSummary> indexSearchTop10() {
+        return restaurantSearchIndex.search(randomZipCode(), PEANUT, 0, 10);
+    }
+
+    @Benchmark
+    public List<RestaurantSummary> indexSearchPeanutAndDairyTop10() {
+        return restaurantSearchIndex.search(randomZipCode(), PEANUT_AND_DAIRY, 0, 10);
+    }
+
+    @Benchmark
+    public Map<String, Double> gridLookup() {
+        return zipCodeGrid.within(randomZipCode(), RADIUS_MILES);
+    }
+
+    @Benchmark
+    public List<RestaurantSummary> leaderboardSearchNearbyTop10() {
+        return restaurantLeaderboard.searchNearby(zipCodeGrid.within(randomZipCode(), RADIUS_MILES), PEANUT, 0, 10);
+    }
+
+    // The naive alternative: one query per nearby zip code, merged afterwards
+    @Benchmark
+    public List<RestaurantSummary> leaderboardSearchPerZipCodeTop10() {
+        List<RestaurantSummary> found = new ArrayList<>();
+        for (String zipCode : zipCodeGrid.within(randomZipCode(), RADIUS_MILES).keySet()) {
+            found.addAll(restaurantLeaderboard.search(zipCode, PEANUT, 0, 10));
+        }
+        found.sort(Comparator.comparing(PEANUT::scoreOf).reversed());
+        return found.subList(0, Math.min(10, found.size()));
+    }
+
+    @Benchmark
+    public List<RestaurantSummary> indexSearchNearbyTop10() {
+        return restaurantSearchIndex.searchNearby(zipCodeGrid.within(randomZipCode(), RADIUS_MILES), PEANUT, 0, 10);
+    }
+}
@@ -0,0 +1,113 @@
+package com.irened.bitereviewapi.benchmark;
+
+import com.irened.bitereviewapi.BitereviewapiApplication;
+import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import com.irened.bitereviewapi.model.User;
+import com.irened.bitereviewapi.repository.DiningReviewRepository;
+import com.irened.bitereviewapi.repository.RestaurantRepository;
+import com.irened.bitereviewapi.repository.UserRepository;
+import com.irened.bitereviewapi.service.RestaurantLeaderboard;
+import com.irened.bitereviewapi.service.RestaurantNameIndex;
+import com.irened.bitereviewapi.service.RestaurantScoreService;
+import com.irened.bitereviewapi.service.RestaurantSearchIndex;
+import com.irened.bitereviewapi.service.ReviewDuplicateDetector;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Starts the application without a web server against an in-memory H2 database
+ * and seeds it with users, restaurants and reviews.
+ */
+final class SeededApplication implements AutoCloseable {
+
+    private static final int SEED_CHUNK_SIZE = 5000;
+    private static final ReviewStatus[] STATUSES = {
+            ReviewStatus.APPROVED, ReviewStatus.APPROVED, ReviewStatus.PENDING, ReviewStatus.REJECTED
+    };
+
+    final ConfigurableApplicationContext context;
+    final List<Long> restaurantIds = new ArrayList<>();
+    final int users;
+    final int zipCodes;
+
+    SeededApplication(int users, int restaurants, int reviews, int zipCodes) {
+        this.users = users;
+        this.zipCodes = zipCodes;
+        this.context = new SpringApplicationBuilder(BitereviewapiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+
+        Random random = new Random(42);
+        seedUsers(users);
+        seedRestaurants(restaurants, random);
+        seedReviews(reviews, random);
+
+        if (reviews > 0) {
+            bean(RestaurantScoreService.class).rebuildAllAggregates();  // Otherwise keep the generated scores
+        }
+        bean(RestaurantSearchIndex.class).rebuild();
+        bean(RestaurantNameIndex.class).rebuild();
+        bean(ReviewDuplicateDetector.class).rebuild();
+        RestaurantLeaderboard leaderboard = bean(RestaurantLeaderboard.class);
+        leaderboard.rebuild();
+        try {
+            leaderboard.awaitRefreshed(Duration.ofMinutes(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    private void seedUsers(int count) {
+        List<User> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            batch.add(BenchmarkData.user(i, zipCodes));
+        }
+        bean(UserRepository.class).saveAll(batch);
+    }
+
+    private void seedRestaurants(int count, Random random) {
+        List<Restaurant> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            batch.add(BenchmarkData.restaurant(i, zipCodes, random));
+        }
+        for (Restaurant restaurant : bean(RestaurantRepository.class).saveAll(batch)) {
+            restaurantIds.add(restaurant.getId());
+        }
+    }
+
+    private void seedReviews(int count, Random random) {
+        DiningReviewRepository repository = bean(DiningReviewRepository.class);
+        List<DiningReview> batch = new ArrayList<>(SEED_CHUNK_SIZE);
+        for (int i = 0; i < count; i++) {
+            batch.add(BenchmarkData.review(
+                    BenchmarkData.displayName(random.nextInt(users)),
+                    restaurantIds.get(random.nextInt(restaurantIds.size())),
+                    STATUSES[random.nextInt(STATUSES.length)],
+                    random));
+            if (batch.size() == SEED_CHUNK_SIZE) {
+                repository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        repository.saveAll(batch);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
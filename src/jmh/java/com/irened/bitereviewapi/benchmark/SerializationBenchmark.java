@@ -0,0 +1,86 @@
+package com.irened.bitereviewapi.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of review and restaurant lists, with the application's
+ * NON_NULL inclusion, both pretty-printed and compact.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "10000"})
+    private int listSize;
+
+    private List<DiningReview> reviews;
+    private List<Restaurant> restaurants;
+    private ObjectWriter indentedWriter;
+    private ObjectWriter compactWriter;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        reviews = new ArrayList<>(listSize);
+        restaurants = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            DiningReview review = BenchmarkData.review(BenchmarkData.displayName(i), i, ReviewStatus.PENDING, random);
+            review.setId((long) i);
+            reviews.add(review);
+
+            Restaurant restaurant = BenchmarkData.restaurant(i, 100, random);
+            restaurant.setId((long) i);
+            restaurants.add(restaurant);
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        indentedWriter = objectMapper.writerWithDefaultPrettyPrinter();
+        compactWriter = objectMapper.writer();
+    }
+
+    @Benchmark
+    public byte[] reviewsIndented() throws JsonProcessingException {
+        return indentedWriter.writeValueAsBytes(reviews);
+    }
+
+    @Benchmark
+    public byte[] reviewsCompact() throws JsonProcessingException {
+        return compactWriter.writeValueAsBytes(reviews);
+    }
+
+    @Benchmark
+    public byte[] restaurantsIndented() throws JsonProcessingException {
+        return indentedWriter.writeValueAsBytes(restaurants);
+    }
+
+    @Benchmark
+    public byte[] restaurantsCompact() throws JsonProcessingException {
+        return compactWriter.writeValueAsBytes(restaurants);
+    }
+}
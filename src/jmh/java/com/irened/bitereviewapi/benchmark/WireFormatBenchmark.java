@@ -0,0 +1,122 @@
+package com.irened.bitereviewapi.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.DiningReviewSummary;
+import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.RestaurantSummary;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cost of each response format offered by content negotiation, for the restaurant and review
+ * list payloads: serialization alone, and serialization followed by gzip as applied by the
+ * server's response compression. The encoded and gzipped sizes of each payload are printed
+ * at setup, since bytes on the wire do not depend on the measured run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"1000"})
+    private int listSize;
+
+    @Param({"json-indented", "json", "json-blackbird", "smile", "cbor", "cbor-blackbird"})
+    private String format;
+
+    private List<DiningReviewSummary> reviews;
+    private List<RestaurantSummary> restaurants;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        reviews = new ArrayList<>(listSize);
+        restaurants = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            DiningReview review = BenchmarkData.review(BenchmarkData.displayName(i), i, ReviewStatus.PENDING, random);
+            reviews.add(new DiningReviewSummary((long) i, review.getDisplayName(), review.getRestaurantId(),
+                    review.getPeanutScore(), review.getEggScore(), review.getDairyScore(),
+                    review.getCommentary(), review.getStatus()));
+
+            Restaurant restaurant = BenchmarkData.restaurant(i, 100, random);
+            restaurant.setId((long) i);
+            restaurants.add(RestaurantSummary.from(restaurant));
+        }
+
+        writer = writer(format);
+        System.out.printf("%n%s: reviews %d bytes (%d gzipped), restaurants %d bytes (%d gzipped)%n", format,
+                writer.writeValueAsBytes(reviews).length, gzip(writer.writeValueAsBytes(reviews)).length,
+                writer.writeValueAsBytes(restaurants).length, gzip(writer.writeValueAsBytes(restaurants)).length);
+    }
+
+    // A writer for the format, with the application's NON_NULL inclusion
+    private static ObjectWriter writer(String format) {
+        JsonFactory factory = switch (format) {
+            case "smile" -> new SmileFactory();
+            case "cbor", "cbor-blackbird" -> new CBORFactory();
+            default -> new JsonFactory();
+        };
+        ObjectMapper objectMapper = new ObjectMapper(factory).setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        if (format.endsWith("-blackbird")) {
+            objectMapper.registerModule(new BlackbirdModule());
+        }
+        return format.equals("json-indented") ? objectMapper.writerWithDefaultPrettyPrinter() : objectMapper.writer();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] reviews() throws IOException {
+        return writer.writeValueAsBytes(reviews);
+    }
+
+    @Benchmark
+    public byte[] reviewsGzipped() throws IOException {
+        return gzip(writer.writeValueAsBytes(reviews));
+    }
+
+    @Benchmark
+    public byte[] restaurants() throws IOException {
+        return writer.writeValueAsBytes(restaurants);
+    }
+
+    @Benchmark
+    public byte[] restaurantsGzipped() throws IOException {
+        return gzip(writer.writeValueAsBytes(restaurants));
+    }
+}
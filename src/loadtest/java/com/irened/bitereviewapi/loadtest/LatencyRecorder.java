@@ -0,0 +1,67 @@
+package com.irened.bitereviewapi.loadtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects response times per endpoint and prints throughput and latency percentiles.
+ * Every sample is kept, which is fine for the few million requests a load-test run issues.
+ */
+final class LatencyRecorder {
+
+    private final Map<String, EndpointSamples> samplesByEndpoint = new TreeMap<>();
+
+    synchronized void record(String endpoint, long latencyNanos, boolean success) {
+        samplesByEndpoint.computeIfAbsent(endpoint, name -> new EndpointSamples()).add(latencyNanos, success);
+    }
+
+    synchronized void report(PrintStream out, double elapsedSeconds, long dropped) {
+        out.printf("%-36s %8s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        long total = 0;
+        long errors = 0;
+        for (Map.Entry<String, EndpointSamples> entry : samplesByEndpoint.entrySet()) {
+            EndpointSamples samples = entry.getValue();
+            long[] sorted = Arrays.copyOf(samples.latencies, samples.count);
+            Arrays.sort(sorted);
+            out.printf("%-36s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), samples.count, samples.errors, samples.count / elapsedSeconds,
+                    millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)),
+                    millis(percentile(sorted, 0.999)), millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+            total += samples.count;
+            errors += samples.errors;
+        }
+        out.printf("%nTotal: %d requests, %d errors, %d dropped, %.1f req/s over %.1f s%n",
+                total, errors, dropped, total / elapsedSeconds, elapsedSeconds);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class EndpointSamples {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        void add(long latencyNanos, boolean success) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (!success) {
+                errors++;
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.irened.bitereviewapi.loadtest;
+
+import com.irened.bitereviewapi.BitereviewapiApplication;
+import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import com.irened.bitereviewapi.model.User;
+import com.irened.bitereviewapi.repository.DiningReviewRepository;
+import com.irened.bitereviewapi.repository.RestaurantRepository;
+import com.irened.bitereviewapi.repository.UserRepository;
+import com.irened.bitereviewapi.service.RestaurantScoreService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Seeds the application's H2 file database under data/ with users, restaurants and reviews
+ * for a load test, then writes data/loadtest-manifest.properties for LoadTestDriver.
+ * The same --seed always produces the same data, apart from the per-run name prefix. Stop the application before running it,
+ * since the embedded database can only be opened by one process.
+ *
+ * Options: --users, --restaurants, --reviews, --zipCodes, --seed, --profile to seed the database
+ * of a Spring profile such as prod, and --url to seed a different database altogether
+ */
+public final class LoadTestDataGenerator {
+
+    private static final int CHUNK_SIZE = 5000;
+    private static final int FIRST_ZIP_CODE = 10000;
+
+    private LoadTestDataGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        int users = options.getInt("users", 1_000);
+        int restaurants = options.getInt("restaurants", 2_000);
+        int reviews = options.getInt("reviews", 50_000);
+        int zipCodes = options.getInt("zipCodes", 50);
+        long seed = options.getLong("seed", 42);
+        String url = options.getString("url", null);
+        String profile = options.getString("profile", null);
+        String prefix = "lt" + seed + "_" + System.currentTimeMillis();  // Keeps names unique across runs
+
+        List<String> springArgs = new ArrayList<>(List.of("--spring.jpa.show-sql=false", "--logging.level.root=WARN"));
+        if (profile != null) {
+            springArgs.add("--spring.profiles.active=" + profile);
+        }
+        if (url != null) {
+            springArgs.add("--spring.datasource.url=" + url);
+        }
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BitereviewapiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(springArgs.toArray(String[]::new))) {
+            Random random = new Random(seed);
+            long started = System.nanoTime();
+
+            List<String> displayNames = seedUsers(context.getBean(UserRepository.class), prefix, users, zipCodes);
+            List<Long> restaurantIds = seedRestaurants(
+                    context.getBean(RestaurantRepository.class), prefix, restaurants, zipCodes);
+            long[] reviewIdRange = seedReviews(
+                    context.getBean(DiningReviewRepository.class), displayNames, restaurantIds, reviews, random);
+            context.getBean(RestaurantScoreService.class).rebuildAllAggregates();
+
+            Properties manifest = new Properties();
+            manifest.setProperty("prefix", prefix);
+            manifest.setProperty("users", String.valueOf(users));
+            manifest.setProperty("firstRestaurantId", String.valueOf(restaurantIds.get(0)));
+            manifest.setProperty("lastRestaurantId", String.valueOf(restaurantIds.get(restaurantIds.size() - 1)));
+            manifest.setProperty("firstReviewId", String.valueOf(reviewIdRange[0]));
+            manifest.setProperty("lastReviewId", String.valueOf(reviewIdRange[1]));
+            manifest.setProperty("firstZipCode", String.valueOf(FIRST_ZIP_CODE));
+            manifest.setProperty("zipCodes", String.valueOf(zipCodes));
+            LoadTestOptions.writeManifest(manifest);
+
+            System.out.printf("Seeded %d users, %d restaurants and %d reviews in %.1f s (prefix %s)%n",
+                    users, restaurants, reviews, (System.nanoTime() - started) / 1e9, prefix);
+        }
+    }
+
+    static String displayName(String prefix, int index) {
+        return prefix + "_user_" + index;
+    }
+
+    static String zipCode(int index) {
+        return String.valueOf(FIRST_ZIP_CODE + index);
+    }
+
+    private static List<String> seedUsers(UserRepository repository, String prefix, int count, int zipCodes) {
+        List<User> batch = new ArrayList<>(count);
+        List<String> displayNames = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setDisplayName(displayName(prefix, i));
+            user.setCity("Boston");
+            user.setState("MA");
+            user.setZipCode(zipCode(i % zipCodes));
+            user.setInterestedInPeanutAllergies(i % 2 == 0);
+            user.setInterestedInEggAllergies(i % 3 == 0);
+            user.setInterestedInDairyAllergies(i % 5 == 0);
+            batch.add(user);
+            displayNames.add(user.getDisplayName());
+        }
+        repository.saveAll(batch);
+        return displayNames;
+    }
+
+    private static List<Long> seedRestaurants(RestaurantRepository repository, String prefix,
+                                              int count, int zipCodes) {
+        List<Restaurant> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Restaurant restaurant = new Restaurant();
+            restaurant.setName(prefix + " Restaurant " + i);
+            restaurant.setZipCode(zipCode(i % zipCodes));
+            batch.add(restaurant);
+        }
+        List<Long> ids = new ArrayList<>(count);
+        for (Restaurant restaurant : repository.saveAll(batch)) {
+            ids.add(restaurant.getId());
+        }
+        return ids;
+    }
+
+    // Roughly 60% approved, 30% pending and 10% rejected; returns the first and last review ID
+    private static long[] seedReviews(DiningReviewRepository repository, List<String> displayNames,
+                                      List<Long> restaurantIds, int count, Random random) {
+        long[] idRange = {Long.MAX_VALUE, Long.MIN_VALUE};
+        List<DiningReview> batch = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < count; i++) {
+            DiningReview review = new DiningReview();
+            review.setDisplayName(displayNames.get(random.nextInt(displayNames.size())));
+            review.setRestaurantId(restaurantIds.get(random.nextInt(restaurantIds.size())));
+            review.setPeanutScore(random.nextInt(5) == 0 ? null : random.nextInt(5) + 1);
+            review.setEggScore(random.nextInt(5) == 0 ? null : random.nextInt(5) + 1);
+            review.setDairyScore(random.nextInt(5) == 0 ? null : random.nextInt(5) + 1);
+            review.setCommentary("Load test review " + i);
+            int roll = random.nextInt(10);
+            review.setStatus(roll < 6 ? ReviewStatus.APPROVED : roll < 9 ? ReviewStatus.PENDING : ReviewStatus.REJECTED);
+            batch.add(review);
+
+            if (batch.size() == CHUNK_SIZE || i == count - 1) {
+                for (DiningReview saved : repository.saveAll(batch)) {
+                    idRange[0] = Math.min(idRange[0], saved.getId());
+                    idRange[1] = Math.max(idRange[1], saved.getId());
+                }
+                batch.clear();
+            }
+        }
+        return idRange;
+    }
+}
@@ -0,0 +1,233 @@
+package com.irened.bitereviewapi.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a mix of user, restaurant, review and admin requests against a running instance at a
+ * fixed arrival rate, then prints throughput and p50/p99/p999 latency per endpoint.
+ * Requests are scheduled on an open model: each latency is measured from the time the request
+ * was due to be sent, so a slow server cannot hide its queueing delay by slowing the driver down.
+ * Requests that would exceed --maxInFlight are dropped and counted instead of queued.
+ *
+ * Options: --baseUrl, --rate (requests per second), --duration and --warmup (seconds),
+ * --maxInFlight, --seed, and --mix: "all" (default), "submit-search", which only sends review
+ * submissions and searches, for comparing the platform and virtual thread modes, or "reads", which
+ * only sends the GET requests the reactive profile serves, for comparing it with the default one
+ */
+public final class LoadTestDriver {
+
+    private static final String[] ALLERGIES = {"peanut", "egg", "dairy"};
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final Properties manifest;
+    private final List<WeightedRequest> mix;
+    private final int totalWeight;
+
+    private LoadTestDriver(HttpClient client, String baseUrl, Properties manifest, String mixName) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.manifest = manifest;
+        // Read-heavy mix: searches and lookups dominate, with a steady trickle of writes
+        List<WeightedRequest> all = List.of(
+                new WeightedRequest("GET /api/restaurants/search", 35, this::searchRestaurants),
+                new WeightedRequest("GET /api/restaurants/{id}", 20, this::getRestaurant),
+                new WeightedRequest("GET /api/users/{displayName}", 10, this::getUser),
+                new WeightedRequest("GET /api/reviews/restaurant/{id}", 10, this::getRestaurantReviews),
+                new WeightedRequest("POST /api/reviews", 12, this::submitReview),
+                new WeightedRequest("GET /api/restaurants", 5, this::listRestaurants),
+                new WeightedRequest("GET /api/admin/reviews/pending", 4, this::getPendingReviews),
+                new WeightedRequest("PUT /api/admin/reviews/{id}", 4, this::moderateReview));
+        this.mix = switch (mixName) {
+            case "all" -> all;
+            case "submit-search" -> all.stream()
+                    .filter(request -> request.endpoint().equals("POST /api/reviews")
+                            || request.endpoint().equals("GET /api/restaurants/search"))
+                    .toList();
+            case "reads" -> all.stream()
+                    .filter(request -> request.endpoint().startsWith("GET ")
+                            && !request.endpoint().equals("GET /api/users/{displayName}"))
+                    .toList();
+            default -> throw new IllegalArgumentException("Unknown mix " + mixName);
+        };
+        this.totalWeight = mix.stream().mapToInt(WeightedRequest::weight).sum();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        String baseUrl = options.getString("baseUrl", "http://localhost:8080");
+        int rate = options.getInt("rate", 200);
+        int duration = options.getInt("duration", 60);
+        int warmup = options.getInt("warmup", 10);
+        int maxInFlight = options.getInt("maxInFlight", 256);
+        Random random = new Random(options.getLong("seed", 42));
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxInFlight, 64));
+        HttpClient client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        LoadTestDriver driver = new LoadTestDriver(client, baseUrl, LoadTestOptions.readManifest(),
+                options.getString("mix", "all"));
+
+        if (warmup > 0) {
+            System.out.printf("Warming up for %d s at %d req/s...%n", warmup, rate);
+            driver.run(random, rate, warmup, maxInFlight, new LatencyRecorder());
+        }
+        System.out.printf("Measuring for %d s at %d req/s against %s...%n", duration, rate, baseUrl);
+        LatencyRecorder recorder = new LatencyRecorder();
+        long started = System.nanoTime();
+        long dropped = driver.run(random, rate, duration, maxInFlight, recorder);
+        recorder.report(System.out, (System.nanoTime() - started) / 1e9, dropped);
+
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Issue requests at the given rate for the given duration and wait for them to complete.
+     *
+     * @return The number of requests dropped because too many were in flight.
+     */
+    private long run(Random random, int rate, int durationSeconds, int maxInFlight,
+                     LatencyRecorder recorder) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long dropped = 0;
+
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * interval;
+            if (intendedStart >= end) {
+                break;
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!inFlight.tryAcquire()) {
+                dropped++;
+                continue;
+            }
+
+            WeightedRequest request = pick(random);
+            client.sendAsync(request.factory().create(random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        boolean success = failure == null && response.statusCode() < 400;
+                        recorder.record(request.endpoint(), System.nanoTime() - intendedStart, success);
+                        inFlight.release();
+                    });
+        }
+
+        inFlight.acquire(maxInFlight);  // Wait for the stragglers
+        inFlight.release(maxInFlight);
+        return dropped;
+    }
+
+    private WeightedRequest pick(Random random) {
+        int roll = random.nextInt(totalWeight);
+        for (WeightedRequest request : mix) {
+            roll -= request.weight();
+            if (roll < 0) {
+                return request;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    private HttpRequest searchRestaurants(Random random) {
+        return get("/api/restaurants/search?zipcode=" + zipCode(random)
+                + "&allergy=" + ALLERGIES[random.nextInt(ALLERGIES.length)] + "&limit=20");
+    }
+
+    private HttpRequest getRestaurant(Random random) {
+        return get("/api/restaurants/" + restaurantId(random));
+    }
+
+    private HttpRequest getUser(Random random) {
+        return get("/api/users/" + displayName(random));
+    }
+
+    private HttpRequest getRestaurantReviews(Random random) {
+        return get("/api/reviews/restaurant/" + restaurantId(random) + "?status=APPROVED&size=20");
+    }
+
+    private HttpRequest listRestaurants(Random random) {
+        return get("/api/restaurants?size=50&afterId=" + (restaurantId(random) - 1));
+    }
+
+    private HttpRequest getPendingReviews(Random random) {
+        return get("/api/admin/reviews/pending?size=50&afterId=" + (reviewId(random) - 1));
+    }
+
+    private HttpRequest submitReview(Random random) {
+        String body = String.format(
+                "{\"displayName\":\"%s\",\"restaurantId\":%d,\"peanutScore\":%d,\"eggScore\":%d,"
+                        + "\"dairyScore\":%d,\"commentary\":\"Load test submission %08x\"}",
+                displayName(random), restaurantId(random),
+                random.nextInt(5) + 1, random.nextInt(5) + 1, random.nextInt(5) + 1,
+                random.nextInt());  // Unique commentary, so repeated user and restaurant pairs are not duplicates
+        return send("POST", "/api/reviews", body);
+    }
+
+    private HttpRequest moderateReview(Random random) {
+        String body = "{\"accepted\":" + (random.nextInt(4) != 0) + "}";
+        return send("PUT", "/api/admin/reviews/" + reviewId(random), body);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest send(String method, String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private String zipCode(Random random) {
+        int first = Integer.parseInt(manifest.getProperty("firstZipCode"));
+        return String.valueOf(first + random.nextInt(Integer.parseInt(manifest.getProperty("zipCodes"))));
+    }
+
+    private String displayName(Random random) {
+        int users = Integer.parseInt(manifest.getProperty("users"));
+        return LoadTestDataGenerator.displayName(manifest.getProperty("prefix"), random.nextInt(users));
+    }
+
+    private long restaurantId(Random random) {
+        return idBetween(random, "firstRestaurantId", "lastRestaurantId");
+    }
+
+    private long reviewId(Random random) {
+        return idBetween(random, "firstReviewId", "lastReviewId");
+    }
+
+    private long idBetween(Random random, String firstKey, String lastKey) {
+        long first = Long.parseLong(manifest.getProperty(firstKey));
+        long last = Long.parseLong(manifest.getProperty(lastKey));
+        return first + (long) (random.nextDouble() * (last - first + 1));
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        HttpRequest create(Random random);
+    }
+
+    private record WeightedRequest(String endpoint, int weight, RequestFactory factory) {
+    }
+}
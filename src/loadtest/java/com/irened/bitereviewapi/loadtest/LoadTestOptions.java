@@ -0,0 +1,66 @@
+package com.irened.bitereviewapi.loadtest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Command-line options (--name=value) shared by the load-test tools, and the manifest
+ * the data generator leaves behind so the driver knows which rows it can address.
+ */
+final class LoadTestOptions {
+
+    static final Path MANIFEST = Path.of("data", "loadtest-manifest.properties");
+
+    private final Map<String, String> values = new HashMap<>();
+
+    private LoadTestOptions() {
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    String getString(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        return values.containsKey(name) ? Integer.parseInt(values.get(name)) : defaultValue;
+    }
+
+    long getLong(String name, long defaultValue) {
+        return values.containsKey(name) ? Long.parseLong(values.get(name)) : defaultValue;
+    }
+
+    static void writeManifest(Properties manifest) throws IOException {
+        Files.createDirectories(MANIFEST.getParent());
+        try (Writer writer = Files.newBufferedWriter(MANIFEST)) {
+            manifest.store(writer, "Written by LoadTestDataGenerator");
+        }
+    }
+
+    static Properties readManifest() throws IOException {
+        if (!Files.exists(MANIFEST)) {
+            throw new IllegalStateException(MANIFEST + " not found; run LoadTestDataGenerator first");
+        }
+        Properties manifest = new Properties();
+        try (Reader reader = Files.newBufferedReader(MANIFEST)) {
+            manifest.load(reader);
+        }
+        return manifest;
+    }
+}
@@ -0,0 +1,13 @@
+package com.irened.bitereviewapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bitereview.geo")
+public class GeoProperties {
+    private String zipCentroids = "classpath:geo/zcta-centroids.tsv";  // Census ZCTA Gazetteer file, optionally gzipped
+    private double maxRadiusMiles = 50;  // Largest radius a search may ask for
+}
@@ -0,0 +1,38 @@
+package com.irened.bitereviewapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bitereview.http-cache")
+public class HttpCacheProperties {
+    private Duration restaurantMaxAge = Duration.ZERO;  // How long clients may reuse a restaurant before revalidating
+    private Duration searchMaxAge = Duration.ofSeconds(5);  // How long clients may reuse search results before revalidating
+
+    public CacheControl restaurantCacheControl() {
+        return revalidateAfter(restaurantMaxAge).cachePublic();
+    }
+
+    public CacheControl searchCacheControl() {
+        return revalidateAfter(searchMaxAge).cachePublic();
+    }
+
+    /**
+     * Cache-Control for a resource that clients may reuse for the given time and must then
+     * revalidate with its ETag. A zero duration means revalidating on every use.
+     *
+     * @param maxAge How long a response stays fresh.
+     * @return The Cache-Control header value.
+     */
+    private static CacheControl revalidateAfter(Duration maxAge) {
+        if (maxAge.isZero() || maxAge.isNegative()) {
+            return CacheControl.noCache();
+        }
+        return CacheControl.maxAge(maxAge).mustRevalidate();
+    }
+}
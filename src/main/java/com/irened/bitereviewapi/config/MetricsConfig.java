@@ -0,0 +1,44 @@
+package com.irened.bitereviewapi.config;
+
+import com.irened.bitereviewapi.metrics.SqlStatementCountFilter;
+import com.irened.bitereviewapi.metrics.SqlStatementCounter;
+import com.irened.bitereviewapi.metrics.SqlStatementObservationConvention;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Wires per-request SQL statement counting into Hibernate, the async executor and the HTTP request metrics.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementCounter());
+    }
+
+    // Applied by Spring Boot to the application task executor, which writes streamed responses
+    @Bean
+    public TaskDecorator sqlStatementCountTaskDecorator() {
+        return SqlStatementCounter.taskDecorator();
+    }
+
+    @Bean
+    public SqlStatementObservationConvention sqlStatementObservationConvention() {
+        return new SqlStatementObservationConvention();
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatementCountFilter> sqlStatementCountFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<SqlStatementCountFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatementCountFilter(meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);  // Ahead of the HTTP observation filter
+        return registration;
+    }
+}
@@ -0,0 +1,15 @@
+package com.irened.bitereviewapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bitereview.name-search")
+public class NameSearchProperties {
+    private double minSimilarity = 0.6;  // Share of the query's trigrams a name must contain to match
+    private double duplicateSimilarity = 1.0;  // Trigram similarity at which a new restaurant in the same zip code is a duplicate
+    private int maxQueryLength = 100;  // Longest name query accepted, in characters
+    private int defaultLimit = 20;  // Matches returned when the client does not ask for a number
+}
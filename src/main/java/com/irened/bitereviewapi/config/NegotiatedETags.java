@@ -0,0 +1,78 @@
+package com.irened.bitereviewapi.config;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ETags for responses that come in several formats. JSON, CBOR and Smile encodings of the same
+ * document are different bytes, so each gets its own ETag, and the responses carry
+ * {@code Vary: Accept} so caches keep them apart. The tags are weak: the server compresses
+ * large responses, which a strong ETag would forbid.
+ */
+public final class NegotiatedETags {
+
+    public static final String VARY = "Accept";
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    // In the order the message converters are registered, so a wildcard picks JSON as they do
+    private static final List<MediaType> FORMATS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, SMILE);
+
+    private NegotiatedETags() {
+    }
+
+    /**
+     * The weak ETag of a resource version in the given format.
+     *
+     * @param tag    Identifies the resource version, the same in every format.
+     * @param format The format the response is written in.
+     * @return The ETag header value.
+     */
+    public static String of(String tag, MediaType format) {
+        return "W/\"" + tag + "-" + format.getSubtype() + "\"";
+    }
+
+    /**
+     * The weak ETag of a resource version in the format content negotiation picks for the
+     * given Accept header.
+     *
+     * @param tag    Identifies the resource version, the same in every format.
+     * @param accept The request's Accept header, or null if it sent none.
+     * @return The ETag header value.
+     */
+    public static String of(String tag, String accept) {
+        return of(tag, negotiate(accept));
+    }
+
+    /**
+     * The format the message converters answer the given Accept header with, JSON if it names
+     * none of them or cannot be parsed.
+     */
+    static MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType format : FORMATS) {
+                if (type.isCompatibleWith(format)) {
+                    return format;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+}
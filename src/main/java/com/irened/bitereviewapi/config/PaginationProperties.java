@@ -0,0 +1,30 @@
+package com.irened.bitereviewapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bitereview.pagination")
+public class PaginationProperties {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";  // Response header carrying the keyset cursor
+    public static final String NEXT_PAGE_HEADER = "X-Next-Page";  // Response header carrying the next page number
+
+    private int defaultPageSize = 100;  // Page size used when the client does not ask for one
+    private int maxPageSize = 1000;  // Upper bound on any requested page size
+
+    /**
+     * Resolve the page size for a request, falling back to the default
+     * and capping it at the configured maximum.
+     *
+     * @param requested The page size requested by the client (optional).
+     * @return The page size to use.
+     */
+    public int resolvePageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return Math.min(defaultPageSize, maxPageSize);
+        }
+        return Math.min(requested, maxPageSize);
+    }
+}
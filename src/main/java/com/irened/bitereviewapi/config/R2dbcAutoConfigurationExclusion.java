@@ -0,0 +1,35 @@
+package com.irened.bitereviewapi.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+
+/**
+ * Keeps Spring Boot from configuring R2DBC on its own when the reactive Maven profile puts it on
+ * the classpath. Its ConnectionFactory bean would make Spring Boot back off from the JDBC DataSource
+ * that JPA and Flyway need, so the reactive read repository keeps a pool of its own instead. Added
+ * to any auto-configuration already excluded, whichever Spring profile is active; without R2DBC on
+ * the classpath it does nothing.
+ */
+public class R2dbcAutoConfigurationExclusion implements EnvironmentPostProcessor {
+
+    private static final String EXCLUDE_PROPERTY = "spring.autoconfigure.exclude";
+    private static final String R2DBC_AUTO_CONFIGURATION =
+            "org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!ClassUtils.isPresent("io.r2dbc.spi.ConnectionFactory", application.getClassLoader())) {
+            return;
+        }
+        String excluded = environment.getProperty(EXCLUDE_PROPERTY);
+        String value = StringUtils.hasText(excluded) ? excluded + "," + R2DBC_AUTO_CONFIGURATION : R2DBC_AUTO_CONFIGURATION;
+        environment.getPropertySources().addFirst(
+                new MapPropertySource("bitereviewR2dbcExclusion", Map.of(EXCLUDE_PROPERTY, value)));
+    }
+}
@@ -0,0 +1,23 @@
+package com.irened.bitereviewapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bitereview.reviews.admission")
+public class ReviewAdmissionProperties {
+    private double perUserRate = 1;  // Reviews per second one display name may sustain
+    private int perUserBurst = 10;  // Reviews one display name may submit at once after being idle
+    private double globalRate = 500;  // Reviews per second accepted from everyone together
+    private int globalBurst = 1000;  // Reviews accepted at once from everyone together after being idle
+    private int maxTrackedUsers = 100_000;  // Display names whose rate is tracked at once; idle ones are forgotten first
+    private int bufferCapacity = 10_000;  // Reviews accepted but not yet written before submissions are refused
+    private int batchSize = 500;  // Reviews written per transaction
+    private Duration bufferFullRetryAfter = Duration.ofSeconds(1);  // Retry-After sent when the buffer is full
+    private Duration writeRetryBackoff = Duration.ofMillis(100);  // Wait before writing held reviews again, doubled each time
+    private Duration maxWriteRetryBackoff = Duration.ofSeconds(10);  // Longest wait between writes of held reviews
+}
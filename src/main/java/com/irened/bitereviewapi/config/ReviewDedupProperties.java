@@ -0,0 +1,17 @@
+package com.irened.bitereviewapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bitereview.reviews.dedup")
+public class ReviewDedupProperties {
+    private long expectedReviews = 1_000_000;  // Reviews the filter is sized for; at least twice the table at startup
+    private double falsePositiveRate = 0.01;  // Target false-positive rate of the filter at the expected size
+    private int nearDuplicateMaxDistance = 7;  // Most SimHash bits two commentaries may differ in to be near-duplicates
+    private int nearDuplicateMinWords = 5;  // Shorter commentaries are never near-duplicates
+    private int recentFingerprintsPerUser = 64;  // Commentaries per user compared for near-duplicates
+    private int maxTrackedUsers = 100_000;  // Users whose recent commentaries are kept; least recently used are dropped
+}
@@ -0,0 +1,16 @@
+package com.irened.bitereviewapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bitereview.scores.recompute")
+public class ScoreRecomputeProperties {
+    private int workers = 2;  // Background threads recomputing scores
+    private int batchSize = 100;  // Restaurants recomputed per transaction
+    private Duration interval = Duration.ofMillis(100);  // Delay between drains of the dirty set
+}
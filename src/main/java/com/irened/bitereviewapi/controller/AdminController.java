@@ -1,17 +1,36 @@
 package com.irened.bitereviewapi.controller;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.irened.bitereviewapi.config.PaginationProperties;
 import com.irened.bitereviewapi.model.AdminReviewAction;
+import com.irened.bitereviewapi.model.AdminReviewBatchAction;
 import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.DiningReviewSummary;
+import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.ReviewModerationResult;
 import com.irened.bitereviewapi.model.ReviewStatus;
-import com.irened.bitereviewapi.model.User;
 import com.irened.bitereviewapi.repository.DiningReviewRepository;
-import com.irened.bitereviewapi.repository.RestaurantRepository;
-import com.irened.bitereviewapi.repository.UserRepository;
+import com.irened.bitereviewapi.service.CachedLookupService;
+import com.irened.bitereviewapi.service.NdjsonStreamer;
+import com.irened.bitereviewapi.service.OptimisticLockRetry;
+import com.irened.bitereviewapi.service.RestaurantLeaderboard;
+import com.irened.bitereviewapi.service.RestaurantScoreService;
+import com.irened.bitereviewapi.service.ReviewDuplicateDetector;
+import com.irened.bitereviewapi.service.ReviewModerationService;
+import com.irened.bitereviewapi.service.ScoreRecomputeQueue;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.text.DecimalFormat;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,34 +41,80 @@ import java.util.Optional;
 public class AdminController {
 
     private final DiningReviewRepository diningReviewRepository;
-    private final RestaurantRepository restaurantRepository;
-    private final UserRepository userRepository;
-    private static final DecimalFormat decimalFormat = new DecimalFormat("0.00");
+    private final CachedLookupService cachedLookupService;
+    private final CacheManager cacheManager;
+    private final RestaurantScoreService restaurantScoreService;
+    private final ReviewModerationService reviewModerationService;
+    private final ScoreRecomputeQueue scoreRecomputeQueue;
+    private final RestaurantLeaderboard restaurantLeaderboard;
+    private final NdjsonStreamer ndjsonStreamer;
+    private final PaginationProperties paginationProperties;
+    private final ReviewDuplicateDetector reviewDuplicateDetector;
 
     public AdminController(DiningReviewRepository diningReviewRepository,
-                           RestaurantRepository restaurantRepository,
-                           UserRepository userRepository) {
+                           CachedLookupService cachedLookupService,
+                           CacheManager cacheManager,
+                           RestaurantScoreService restaurantScoreService,
+                           ReviewModerationService reviewModerationService,
+                           ScoreRecomputeQueue scoreRecomputeQueue,
+                           RestaurantLeaderboard restaurantLeaderboard,
+                           NdjsonStreamer ndjsonStreamer,
+                           PaginationProperties paginationProperties,
+                           ReviewDuplicateDetector reviewDuplicateDetector) {
         this.diningReviewRepository = diningReviewRepository;
-        this.restaurantRepository = restaurantRepository;
-        this.userRepository = userRepository;
+        this.cachedLookupService = cachedLookupService;
+        this.cacheManager = cacheManager;
+        this.restaurantScoreService = restaurantScoreService;
+        this.reviewModerationService = reviewModerationService;
+        this.scoreRecomputeQueue = scoreRecomputeQueue;
+        this.restaurantLeaderboard = restaurantLeaderboard;
+        this.ndjsonStreamer = ndjsonStreamer;
+        this.paginationProperties = paginationProperties;
+        this.reviewDuplicateDetector = reviewDuplicateDetector;
     }
 
     /**
-     * Fetch all dining reviews with a pending status.
+     * Fetch a page of dining reviews with a pending status.
+     * Pages are keyed on the review ID: pass the returned nextCursor as afterId to get the next page.
      *
-     * @return List of pending dining reviews.
+     * @param afterId Only return reviews with an ID greater than this cursor (optional).
+     * @param size    Maximum number of reviews to return (optional, capped by the server).
+     * @return Page of pending dining reviews and the cursor for the next page, if any.
      */
     @GetMapping("/reviews/pending")
-    public ResponseEntity<Map<String, Object>> getPendingReviews() {  
-        List<DiningReview> pendingReviews = diningReviewRepository.findAllByStatus(ReviewStatus.PENDING);
+    public ResponseEntity<Map<String, Object>> getPendingReviews(@RequestParam(required = false) Long afterId,
+                                                                 @RequestParam(required = false) Integer size) {
+        int pageSize = paginationProperties.resolvePageSize(size);
+        List<DiningReviewSummary> pendingReviews = diningReviewRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                ReviewStatus.PENDING, afterId == null ? 0L : afterId, Limit.of(pageSize));
+
         Map<String, Object> response = new HashMap<>();
         response.put("pendingReviews", pendingReviews);
+        if (pendingReviews.size() == pageSize) {
+            response.put("nextCursor", pendingReviews.get(pendingReviews.size() - 1).id());
+        }
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    /**
+     * Stream all pending dining reviews as newline-delimited JSON, one review per line.
+     * Reviews are written as they are read from the database.
+     *
+     * @param afterId Only stream reviews with an ID greater than this cursor (optional).
+     * @return Streaming response of pending dining reviews.
+     */
+    @GetMapping(value = "/reviews/pending", produces = NdjsonStreamer.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamPendingReviews(@RequestParam(required = false) Long afterId) {
+        StreamingResponseBody body = ndjsonStreamer.stream(() ->
+                diningReviewRepository.streamByStatusAndIdGreaterThanOrderByIdAsc(
+                        ReviewStatus.PENDING, afterId == null ? 0L : afterId));
+        return ResponseEntity.ok().contentType(NdjsonStreamer.CONTENT_TYPE).body(body);
+    }
+
     /**
      * Approve or reject a dining review based on an admin's action.
-     * If approved, the restaurant's scores are recomputed.
+     * When the review enters or leaves the approved state, the restaurant is queued for a
+     * background score recompute rather than recomputed within the request.
      *
      * @param id     ID of the dining review.
      * @param action Admin action indicating whether to approve or reject the review.
@@ -65,19 +130,16 @@ public class AdminController {
         DiningReview review = optionalReview.get();
 
         // Validate that the user associated with the review exists by display name
-        Optional<User> optionalUser = userRepository.findByDisplayName(review.getDisplayName());
-        if (optionalUser.isEmpty()) {
+        if (!cachedLookupService.userExists(review.getDisplayName())) {
             return createErrorResponse("User not found for the review", HttpStatus.BAD_REQUEST);  
         }
 
-        // Determine review status based on admin action
+        // Determine review status based on admin action; the restaurant's scores are recomputed in the background
         ReviewStatus status = action.getAccepted() ? ReviewStatus.APPROVED : ReviewStatus.REJECTED;
-        review.setStatus(status);
-        diningReviewRepository.save(review);
-
-        // Recompute restaurant scores if the review is approved
-        if (status == ReviewStatus.APPROVED) {
-            recomputeRestaurantScores(review.getRestaurantId());
+        try {
+            reviewModerationService.changeStatus(review.getId(), status);
+        } catch (OptimisticLockingFailureException ex) {
+            return createErrorResponse("Review was updated concurrently, please retry", HttpStatus.CONFLICT);
         }
 
         Map<String, String> response = new HashMap<>();
@@ -86,43 +148,154 @@ public class AdminController {
     }
 
     /**
-     * Recompute the average peanut, dairy, egg, and overall scores for a restaurant.
-     * The scores are recalculated based on all approved reviews.
+     * Approve or reject many dining reviews at once.
+     * All decisions are applied in one transaction, and the score changes of the affected
+     * reviews are queued together for the background score recompute.
+     *
+     * @param batchAction The list of review IDs with their approve/reject decisions.
+     * @return Per-review outcomes, including the reason for any decision that was not applied.
+     */
+    @PostMapping("/reviews/batch")
+    public ResponseEntity<Map<String, Object>> approveOrRejectReviews(@RequestBody AdminReviewBatchAction batchAction) {
+        if (batchAction.getDecisions() == null || batchAction.getDecisions().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one decision must be provided.");
+        }
+
+        List<ReviewModerationResult> results;
+        try {
+            results = reviewModerationService.moderate(batchAction.getDecisions());
+        } catch (OptimisticLockingFailureException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Reviews were updated concurrently, please retry.");
+        }
+        long failed = results.stream().filter(result -> result.getError() != null).count();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("updated", results.size() - failed);
+        response.put("failed", failed);
+        response.put("results", results);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    /**
+     * Rebuild a restaurant's score totals from scratch using its approved reviews.
+     * Useful to reconcile the running aggregates if they ever drift.
      *
      * @param restaurantId ID of the restaurant.
+     * @return The restaurant with its reconciled scores.
      */
-    private void recomputeRestaurantScores(Long restaurantId) {
-        List<DiningReview> approvedReviews = diningReviewRepository.findByRestaurantIdAndStatus(restaurantId, ReviewStatus.APPROVED);
+    @PostMapping("/restaurants/{restaurantId}/scores/rebuild")
+    public ResponseEntity<?> rebuildRestaurantScores(@PathVariable Long restaurantId) {
+        Optional<Restaurant> restaurant;
+        try {
+            restaurant = OptimisticLockRetry.run(OptimisticLockRetry.DEFAULT_ATTEMPTS,
+                    () -> restaurantScoreService.rebuildAggregates(restaurantId));
+        } catch (ConcurrencyFailureException ex) {
+            return createErrorResponse("Restaurant scores were updated concurrently, please retry", HttpStatus.CONFLICT);
+        }
+        if (restaurant.isEmpty()) {
+            return createErrorResponse("Restaurant not found", HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(restaurant.get(), HttpStatus.OK);
+    }
 
-        if (approvedReviews.isEmpty()) {
-            return; // No approved reviews, nothing to recompute
+    /**
+     * Rebuild the score totals of every restaurant from scratch using the approved reviews.
+     *
+     * @return Response message with the number of restaurants reconciled.
+     */
+    @PostMapping("/restaurants/scores/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildAllRestaurantScores() {
+        int rebuilt;
+        try {
+            rebuilt = OptimisticLockRetry.run(OptimisticLockRetry.DEFAULT_ATTEMPTS,
+                    restaurantScoreService::rebuildAllAggregates);
+        } catch (ConcurrencyFailureException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Restaurant scores were updated concurrently, please retry.");
         }
 
-        double totalPeanutScore = 0;
-        double totalDairyScore = 0;
-        double totalEggScore = 0;
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Restaurant scores rebuilt successfully");
+        response.put("restaurantsRebuilt", rebuilt);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
 
-        for (DiningReview review : approvedReviews) {
-            totalPeanutScore += review.getPeanutScore();
-            totalDairyScore += review.getDairyScore();
-            totalEggScore += review.getEggScore();
+    /**
+     * Report how far the background score recompute is behind.
+     *
+     * @return Queued restaurants, running batches, the age of the oldest pending change,
+     *         and the zip codes waiting for their leaderboards to be re-ranked.
+     */
+    @GetMapping("/restaurants/scores/recompute")
+    public ResponseEntity<Map<String, Object>> getScoreRecomputeStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("pendingRestaurants", scoreRecomputeQueue.pendingCount());
+        response.put("batchesInFlight", scoreRecomputeQueue.batchesInFlight());
+        response.put("lagMillis", scoreRecomputeQueue.lag().toMillis());
+        response.put("staleLeaderboardZipCodes", restaurantLeaderboard.pendingCount());
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    /**
+     * Report the state of the duplicate review filter.
+     *
+     * @return Reviews in the filter, its size and number of hash functions, the false-positive rate
+     *         expected from its fill and the rate observed on submissions, and check counts by outcome.
+     */
+    @GetMapping("/reviews/dedup")
+    public ResponseEntity<Map<String, Object>> getReviewDedupStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("ready", reviewDuplicateDetector.isReady());
+        response.put("reviews", reviewDuplicateDetector.filterInsertions());
+        response.put("bits", reviewDuplicateDetector.filterBits());
+        response.put("hashFunctions", reviewDuplicateDetector.filterHashFunctions());
+        response.put("expectedFalsePositiveRate", reviewDuplicateDetector.expectedFalsePositiveRate());
+        response.put("observedFalsePositiveRate", reviewDuplicateDetector.observedFalsePositiveRate());
+        response.put("checks", reviewDuplicateDetector.checkCounts());
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    /**
+     * Recompute all pending restaurant scores now and wait until they are persisted
+     * and the leaderboards of their zip codes are re-ranked.
+     *
+     * @param timeoutSeconds How long to wait at most (optional, defaults to 30 seconds).
+     * @return Response message once every pending recompute has completed.
+     */
+    @PostMapping("/restaurants/scores/recompute/flush")
+    public ResponseEntity<Map<String, String>> flushScoreRecompute(
+            @RequestParam(defaultValue = "30") long timeoutSeconds) throws InterruptedException {
+        Duration timeout = Duration.ofSeconds(timeoutSeconds);
+        if (!scoreRecomputeQueue.flush(timeout) || !restaurantLeaderboard.awaitRefreshed(timeout)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Score recompute did not finish in time.");
         }
 
-        int reviewCount = approvedReviews.size();
-        double totalOverallScore = totalPeanutScore + totalDairyScore + totalEggScore;
-        double averagePeanutScore = totalPeanutScore / reviewCount;
-        double averageDairyScore = totalDairyScore / reviewCount;
-        double averageEggScore = totalEggScore / reviewCount;
-        double averageOverallScore = totalOverallScore / 3;
-
-        // Update restaurant scores
-        restaurantRepository.findById(restaurantId).ifPresent(restaurant -> {
-            restaurant.setPeanutScore(Double.parseDouble(decimalFormat.format(averagePeanutScore)));
-            restaurant.setDairyScore(Double.parseDouble(decimalFormat.format(averageDairyScore)));
-            restaurant.setEggScore(Double.parseDouble(decimalFormat.format(averageEggScore)));
-            restaurant.setOverallScore(Double.parseDouble(decimalFormat.format(averageOverallScore)));
-            restaurantRepository.save(restaurant);
-        });
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Pending restaurant scores recomputed successfully");
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    /**
+     * Report hit, miss and eviction statistics for each lookup cache.
+     *
+     * @return Statistics keyed by cache name.
+     */
+    @GetMapping("/caches")
+    public ResponseEntity<Map<String, Object>> getCacheStatistics() {
+        Map<String, Object> response = new HashMap<>();
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache instanceof CaffeineCache caffeineCache) {
+                CacheStats stats = caffeineCache.getNativeCache().stats();
+                Map<String, Object> cacheStatistics = new HashMap<>();
+                cacheStatistics.put("size", caffeineCache.getNativeCache().estimatedSize());
+                cacheStatistics.put("hits", stats.hitCount());
+                cacheStatistics.put("misses", stats.missCount());
+                cacheStatistics.put("hitRate", stats.hitRate());
+                cacheStatistics.put("evictions", stats.evictionCount());
+                response.put(cacheName, cacheStatistics);
+            }
+        }
+        return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
     /**
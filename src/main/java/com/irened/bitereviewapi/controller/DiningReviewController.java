@@ -1,17 +1,32 @@
 package com.irened.bitereviewapi.controller;
 
+import com.irened.bitereviewapi.config.NegotiatedETags;
+import com.irened.bitereviewapi.config.PaginationProperties;
 import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.DiningReviewSummary;
 import com.irened.bitereviewapi.model.ReviewStatus;
+import com.irened.bitereviewapi.model.ReviewSubmissionResult;
 import com.irened.bitereviewapi.repository.DiningReviewRepository;
-import com.irened.bitereviewapi.repository.RestaurantRepository;
-import com.irened.bitereviewapi.repository.UserRepository;
+import com.irened.bitereviewapi.service.CachedLookupService;
+import com.irened.bitereviewapi.service.NdjsonStreamer;
+import com.irened.bitereviewapi.service.ReviewDuplicateDetector;
+import com.irened.bitereviewapi.service.ReviewIngestionService;
+import com.irened.bitereviewapi.service.ReviewModerationService;
+import com.irened.bitereviewapi.service.ReviewSubmissionQueue;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.ObjectUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 
 @RestController
@@ -19,20 +34,40 @@ import java.util.*;
 public class DiningReviewController {
 
     private final DiningReviewRepository diningReviewRepository;
-    private final RestaurantRepository restaurantRepository;
-    private final UserRepository userRepository;
+    private final CachedLookupService cachedLookupService;
+    private final ReviewModerationService reviewModerationService;
+    private final ReviewIngestionService reviewIngestionService;
+    private final NdjsonStreamer ndjsonStreamer;
+    private final PaginationProperties paginationProperties;
+    private final ReviewSubmissionQueue reviewSubmissionQueue;
+    private final ReviewDuplicateDetector reviewDuplicateDetector;
 
     public DiningReviewController(DiningReviewRepository diningReviewRepository, 
-                                  RestaurantRepository restaurantRepository, 
-                                  UserRepository userRepository) {
+                                  CachedLookupService cachedLookupService,
+                                  ReviewModerationService reviewModerationService,
+                                  ReviewIngestionService reviewIngestionService,
+                                  NdjsonStreamer ndjsonStreamer,
+                                  PaginationProperties paginationProperties,
+                                  ReviewSubmissionQueue reviewSubmissionQueue,
+                                  ReviewDuplicateDetector reviewDuplicateDetector) {
         this.diningReviewRepository = diningReviewRepository;
-        this.restaurantRepository = restaurantRepository;
-        this.userRepository = userRepository;
+        this.cachedLookupService = cachedLookupService;
+        this.reviewModerationService = reviewModerationService;
+        this.reviewIngestionService = reviewIngestionService;
+        this.ndjsonStreamer = ndjsonStreamer;
+        this.paginationProperties = paginationProperties;
+        this.reviewSubmissionQueue = reviewSubmissionQueue;
+        this.reviewDuplicateDetector = reviewDuplicateDetector;
     }
 
     /**
      * Submit a new dining review.
-     * The review is initially set to a pending status.
+     * The review is initially set to a pending status. Accepted reviews are buffered and written
+     * to the database in the background, shortly after the response. A submission exceeding the
+     * user's or the overall submission rate gets 429 Too Many Requests, and one arriving while
+     * the buffer is full gets 503 Service Unavailable, both with a Retry-After header.
+     * A review repeating one the user already wrote for the restaurant, or closely matching
+     * one of the user's recent reviews, gets 409 Conflict.
      *
      * @param diningReview The dining review to be submitted.
      * @return A JSON response indicating successful submission.
@@ -41,30 +76,70 @@ public class DiningReviewController {
     public ResponseEntity<Map<String, String>> submitReview(@RequestBody DiningReview diningReview) {
         validateDiningReview(diningReview);
 
-        Optional<?> restaurant = restaurantRepository.findById(diningReview.getRestaurantId());
+        Optional<?> restaurant = cachedLookupService.findRestaurant(diningReview.getRestaurantId());
         if (restaurant.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Restaurant not found.");
         }
 
-        diningReview.setStatus(ReviewStatus.PENDING);
-        diningReviewRepository.save(diningReview);
+        Optional<String> duplicate = reviewDuplicateDetector.check(diningReview);
+        if (duplicate.isPresent()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, duplicate.get());
+        }
+
+        Optional<ReviewSubmissionQueue.Rejection> rejection = reviewSubmissionQueue.submit(diningReview);
+        if (rejection.isPresent()) {
+            return createRejectionResponse(rejection.get());
+        }
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "Review submitted successfully");
         return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
     }
 
+    /**
+     * Submit many dining reviews at once, as a JSON array or as newline-delimited JSON.
+     * Each review is validated like a single submission and accepted ones are set to pending.
+     * Rejected reviews do not stop the rest of the import.
+     *
+     * @param body The reviews to submit.
+     * @return Per-review outcomes, with the new review ID or the rejection reason.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NdjsonStreamer.MEDIA_TYPE})
+    public ResponseEntity<Map<String, Object>> submitReviews(InputStream body) {
+        List<ReviewSubmissionResult> results;
+        try {
+            results = reviewIngestionService.ingest(body);
+        } catch (IOException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed request body.");
+        }
+        long rejected = results.stream().filter(result -> result.getError() != null).count();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("accepted", results.size() - rejected);
+        response.put("rejected", rejected);
+        response.put("results", results);
+        return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+    }
+
     /**
      * Retrieve a dining review by its ID.
+     * The response carries an ETag derived from the review's version, so clients can
+     * revalidate with If-None-Match and get 304 Not Modified while the review is unchanged.
      *
-     * @param id ID of the dining review.
+     * @param id     ID of the dining review.
+     * @param accept The Accept header, which picks the response format and its ETag.
      * @return The dining review with the given ID.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<DiningReview> getReview(@PathVariable Long id) {
+    public ResponseEntity<DiningReview> getReview(@PathVariable Long id,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         Optional<DiningReview> review = diningReviewRepository.findById(id);
         if (review.isPresent()) {
-            return new ResponseEntity<>(review.get(), HttpStatus.OK);
+            return ResponseEntity.ok()
+                    .eTag(NegotiatedETags.of(review.get().getId() + "-" + review.get().getVersion(), accept))
+                    .varyBy(NegotiatedETags.VARY)
+                    .cacheControl(CacheControl.noCache())
+                    .body(review.get());
         }
         throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Review not found.");
     }
@@ -83,45 +158,124 @@ public class DiningReviewController {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Review not found.");
         }
 
-        DiningReview diningReview = optionalReview.get();
-
+        ReviewStatus reviewStatus;
         try {
-            ReviewStatus reviewStatus = ReviewStatus.valueOf(status.toUpperCase());
-            diningReview.setStatus(reviewStatus);
-            diningReviewRepository.save(diningReview);
+            reviewStatus = ReviewStatus.valueOf(status.toUpperCase());
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid review status.");
         }
 
+        // The restaurant's scores are recomputed in the background if the approval state changed
+        try {
+            reviewModerationService.changeStatus(id, reviewStatus);
+        } catch (OptimisticLockingFailureException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Review was updated concurrently, please retry.");
+        }
+
         Map<String, String> response = new HashMap<>();
         response.put("message", "Review status updated successfully");
         return new ResponseEntity<>(response, HttpStatus.NO_CONTENT);
     }
 
     /**
-     * Retrieve all reviews for a specific restaurant by its ID and status.
+     * Retrieve a page of reviews for a specific restaurant by its ID and status.
+     * Pages are keyed on the review ID: when more reviews are available, the X-Next-Cursor
+     * response header carries the value to pass as afterId for the next page.
      *
      * @param restaurantId ID of the restaurant.
      * @param status       Status of the reviews to retrieve (optional).
+     * @param afterId      Only return reviews with an ID greater than this cursor (optional).
+     * @param size         Maximum number of reviews to return (optional, capped by the server).
      * @return A list of dining reviews matching the criteria.
      */
     @GetMapping("/restaurant/{restaurantId}")
-    public ResponseEntity<List<DiningReview>> getReviewsByRestaurant(@PathVariable Long restaurantId, 
-                                                                     @RequestParam(required = false) String status) {
-        List<DiningReview> reviews;
+    public ResponseEntity<List<DiningReviewSummary>> getReviewsByRestaurant(@PathVariable Long restaurantId, 
+                                                                     @RequestParam(required = false) String status,
+                                                                     @RequestParam(required = false) Long afterId,
+                                                                     @RequestParam(required = false) Integer size) {
+        ReviewStatus reviewStatus = parseOptionalStatus(status);
+        int pageSize = paginationProperties.resolvePageSize(size);
+        Long cursor = afterId == null ? 0L : afterId;
+
+        List<DiningReviewSummary> reviews = reviewStatus == null
+                ? diningReviewRepository.findByRestaurantIdAndIdGreaterThanOrderByIdAsc(
+                        restaurantId, cursor, Limit.of(pageSize))
+                : diningReviewRepository.findByRestaurantIdAndStatusAndIdGreaterThanOrderByIdAsc(
+                        restaurantId, reviewStatus, cursor, Limit.of(pageSize));
+
+        HttpHeaders headers = new HttpHeaders();
+        if (reviews.size() == pageSize) {
+            headers.set(PaginationProperties.NEXT_CURSOR_HEADER, String.valueOf(reviews.get(reviews.size() - 1).id()));
+        }
+        return new ResponseEntity<>(reviews, headers, HttpStatus.OK);
+    }
 
+    /**
+     * Stream all reviews for a specific restaurant as newline-delimited JSON, one review per line.
+     * Reviews are written as they are read from the database.
+     *
+     * @param restaurantId ID of the restaurant.
+     * @param status       Status of the reviews to retrieve (optional).
+     * @return Streaming response of the dining reviews matching the criteria.
+     */
+    @GetMapping(value = "/restaurant/{restaurantId}", produces = NdjsonStreamer.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamReviewsByRestaurant(@PathVariable Long restaurantId,
+                                                                           @RequestParam(required = false) String status) {
+        ReviewStatus reviewStatus = parseOptionalStatus(status);
+        StreamingResponseBody body = ndjsonStreamer.stream(() -> reviewStatus == null
+                ? diningReviewRepository.streamByRestaurantIdOrderByIdAsc(restaurantId)
+                : diningReviewRepository.streamByRestaurantIdAndStatusOrderByIdAsc(restaurantId, reviewStatus));
+        return ResponseEntity.ok().contentType(NdjsonStreamer.CONTENT_TYPE).body(body);
+    }
+
+    /**
+     * Parse an optional review status filter.
+     *
+     * @param status The status text, or null for no filter.
+     * @return The parsed status, or null if none was given.
+     */
+    private ReviewStatus parseOptionalStatus(String status) {
         if (status == null) {
-            reviews = diningReviewRepository.findByRestaurantId(restaurantId);
-        } else {
-            try {
-                ReviewStatus reviewStatus = ReviewStatus.valueOf(status.toUpperCase());
-                reviews = diningReviewRepository.findByRestaurantIdAndStatus(restaurantId, reviewStatus);
-            } catch (IllegalArgumentException ex) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid review status.");
+            return null;
+        }
+        try {
+            return ReviewStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid review status.");
+        }
+    }
+
+    /**
+     * Helper method to turn a refused submission into a JSON error response.
+     * Rate limits get 429 and a full buffer 503, with the wait in whole seconds in Retry-After.
+     *
+     * @param rejection The refused submission.
+     * @return ResponseEntity containing the error message, status and Retry-After header.
+     */
+    private ResponseEntity<Map<String, String>> createRejectionResponse(ReviewSubmissionQueue.Rejection rejection) {
+        HttpStatus status;
+        String message;
+        switch (rejection.reason()) {
+            case USER_RATE -> {
+                status = HttpStatus.TOO_MANY_REQUESTS;
+                message = "Too many reviews from this user, try again later.";
+            }
+            case GLOBAL_RATE -> {
+                status = HttpStatus.TOO_MANY_REQUESTS;
+                message = "Too many reviews, try again later.";
+            }
+            default -> {
+                status = HttpStatus.SERVICE_UNAVAILABLE;
+                message = "Review submissions are backed up, try again later.";
             }
         }
+        long retryAfterSeconds = Math.max(1, (rejection.retryAfter().toMillis() + 999) / 1000);
 
-        return new ResponseEntity<>(reviews, HttpStatus.OK);
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", message);
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(errorResponse);
     }
 
     /**
@@ -140,8 +294,7 @@ public class DiningReviewController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one score must be provided.");
         }
 
-        Optional<?> user = userRepository.findByDisplayName(diningReview.getDisplayName());
-        if (user.isEmpty()) {
+        if (!cachedLookupService.userExists(diningReview.getDisplayName())) {
             throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "User not found.");
         }
     }
@@ -1,15 +1,37 @@
 package com.irened.bitereviewapi.controller;
 
 
+import com.irened.bitereviewapi.config.GeoProperties;
+import com.irened.bitereviewapi.config.HttpCacheProperties;
+import com.irened.bitereviewapi.config.NameSearchProperties;
+import com.irened.bitereviewapi.config.NegotiatedETags;
+import com.irened.bitereviewapi.config.PaginationProperties;
+import com.irened.bitereviewapi.model.AllergyRanking;
 import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.RestaurantSummary;
 import com.irened.bitereviewapi.repository.RestaurantRepository;
+import com.irened.bitereviewapi.service.CachedLookupService;
+import com.irened.bitereviewapi.service.NdjsonStreamer;
+import com.irened.bitereviewapi.service.RestaurantLeaderboard;
+import com.irened.bitereviewapi.service.RestaurantNameIndex;
+import com.irened.bitereviewapi.service.RestaurantSearchIndex;
+import com.irened.bitereviewapi.service.RestaurantUpdatedEvent;
+import com.irened.bitereviewapi.service.ZipCodeLocator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Pattern;
@@ -18,10 +40,43 @@ import java.util.regex.Pattern;
 @RequestMapping("/api/restaurants")
 public class RestaurantController {
     private final RestaurantRepository restaurantRepository;
+    private final NdjsonStreamer ndjsonStreamer;
+    private final PaginationProperties paginationProperties;
+    private final RestaurantSearchIndex restaurantSearchIndex;
+    private final RestaurantLeaderboard restaurantLeaderboard;
+    private final CachedLookupService cachedLookupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final HttpCacheProperties httpCacheProperties;
+    private final ZipCodeLocator zipCodeLocator;
+    private final GeoProperties geoProperties;
+    private final RestaurantNameIndex restaurantNameIndex;
+    private final NameSearchProperties nameSearchProperties;
     private final Pattern zipCodePattern = Pattern.compile("\\d{5}");
 
-    public RestaurantController(RestaurantRepository restaurantRepository) {
+    public RestaurantController(RestaurantRepository restaurantRepository,
+                                NdjsonStreamer ndjsonStreamer,
+                                PaginationProperties paginationProperties,
+                                RestaurantSearchIndex restaurantSearchIndex,
+                                RestaurantLeaderboard restaurantLeaderboard,
+                                CachedLookupService cachedLookupService,
+                                ApplicationEventPublisher eventPublisher,
+                                HttpCacheProperties httpCacheProperties,
+                                ZipCodeLocator zipCodeLocator,
+                                GeoProperties geoProperties,
+                                RestaurantNameIndex restaurantNameIndex,
+                                NameSearchProperties nameSearchProperties) {
         this.restaurantRepository = restaurantRepository;
+        this.ndjsonStreamer = ndjsonStreamer;
+        this.paginationProperties = paginationProperties;
+        this.restaurantSearchIndex = restaurantSearchIndex;
+        this.restaurantLeaderboard = restaurantLeaderboard;
+        this.cachedLookupService = cachedLookupService;
+        this.eventPublisher = eventPublisher;
+        this.httpCacheProperties = httpCacheProperties;
+        this.zipCodeLocator = zipCodeLocator;
+        this.geoProperties = geoProperties;
+        this.restaurantNameIndex = restaurantNameIndex;
+        this.nameSearchProperties = nameSearchProperties;
     }
 
     /**
@@ -36,6 +91,7 @@ public class RestaurantController {
     public ResponseEntity<Map<String, String>> addRestaurant(@RequestBody Restaurant restaurant) {  
         validateNewRestaurant(restaurant);
         restaurantRepository.save(restaurant);
+        eventPublisher.publishEvent(new RestaurantUpdatedEvent(restaurant));
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "Restaurant added successfully");
@@ -45,68 +101,242 @@ public class RestaurantController {
     /**
      * Retrieve restaurant details by ID.
      * If the restaurant with the given ID is not found, a 404 error is returned.
+     * The response carries an ETag derived from the restaurant's version and its Last-Modified
+     * time; a matching If-None-Match or If-Modified-Since gets 304 Not Modified, answered from
+     * the restaurant cache without a database query when the restaurant is cached.
      *
-     * @param id The ID of the restaurant.
+     * @param id     The ID of the restaurant.
+     * @param accept The Accept header, which picks the response format and its ETag.
      * @return JSON response containing the restaurant details or an error message.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getRestaurant(@PathVariable Long id) {  
-        Optional<Restaurant> restaurant = restaurantRepository.findById(id);
+    public ResponseEntity<?> getRestaurant(@PathVariable Long id,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {  
+        Optional<Restaurant> restaurant = cachedLookupService.findRestaurant(id);
         if (restaurant.isPresent()) {
-            return new ResponseEntity<>(restaurant.get(), HttpStatus.OK);
+            return ResponseEntity.ok()
+                    .eTag(NegotiatedETags.of(restaurant.get().getId() + "-" + restaurant.get().getVersion(), accept))
+                    .varyBy(NegotiatedETags.VARY)
+                    .lastModified(restaurant.get().getLastModified())
+                    .cacheControl(httpCacheProperties.restaurantCacheControl())
+                    .body(restaurant.get());
         }
 
         return createErrorResponse("Restaurant not found", HttpStatus.NOT_FOUND);  
     }
 
     /**
-     * Retrieve all restaurants.
+     * Retrieve a page of restaurants ordered by ID.
+     * Pages can be addressed by number (page) or by keyset cursor (afterId); the cursor is
+     * cheaper for deep pages. The next page number and cursor, when more restaurants are
+     * available, are returned in the X-Next-Page and X-Next-Cursor response headers.
      *
-     * @return JSON response containing a list of all restaurants.
+     * @param page    Zero-based page number (optional, ignored when afterId is given).
+     * @param size    Maximum number of restaurants to return (optional, capped by the server).
+     * @param afterId Only return restaurants with an ID greater than this cursor (optional).
+     * @return JSON response containing a page of restaurants.
      */
     @GetMapping
-    public ResponseEntity<Iterable<Restaurant>> getAllRestaurants() {
-        Iterable<Restaurant> restaurants = restaurantRepository.findAll();
-        return new ResponseEntity<>(restaurants, HttpStatus.OK);
+    public ResponseEntity<List<RestaurantSummary>> getAllRestaurants(@RequestParam(required = false) Integer page,
+                                                              @RequestParam(required = false) Integer size,
+                                                              @RequestParam(required = false) Long afterId) {
+        int pageSize = paginationProperties.resolvePageSize(size);
+        HttpHeaders headers = new HttpHeaders();
+        List<RestaurantSummary> restaurants;
+
+        if (afterId != null) {
+            restaurants = restaurantRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize));
+        } else {
+            int pageNumber = page == null ? 0 : page;
+            if (pageNumber < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page number cannot be negative");
+            }
+            Slice<RestaurantSummary> slice = restaurantRepository.findAllBy(
+                    PageRequest.of(pageNumber, pageSize, Sort.by("id")));
+            restaurants = slice.getContent();
+            if (slice.hasNext()) {
+                headers.set(PaginationProperties.NEXT_PAGE_HEADER, String.valueOf(pageNumber + 1));
+            }
+        }
+
+        if (restaurants.size() == pageSize) {
+            headers.set(PaginationProperties.NEXT_CURSOR_HEADER,
+                    String.valueOf(restaurants.get(restaurants.size() - 1).id()));
+        }
+        return new ResponseEntity<>(restaurants, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Stream the full restaurant catalog as newline-delimited JSON, one restaurant per line.
+     * Restaurants are written as they are read from the database, so memory use stays constant.
+     *
+     * @return Streaming response of all restaurants.
+     */
+    @GetMapping(produces = NdjsonStreamer.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamAllRestaurants() {
+        StreamingResponseBody body = ndjsonStreamer.stream(restaurantRepository::streamAllByOrderByIdAsc);
+        return ResponseEntity.ok().contentType(NdjsonStreamer.CONTENT_TYPE).body(body);
     }
 
     /**
      * Search for restaurants by zip code and allergy score.
-     * The allergy type can be "peanut", "dairy", or "egg".
+     * The allergy can be "peanut", "dairy" or "egg", several of them separated by commas
+     * (e.g. "peanut,dairy") to rank by the mean of those scores among restaurants that have all
+     * of them, or "overall" to rank by the overall score.
      * Restaurants are sorted in descending order of their scores.
+     * Results are served from the in-memory search index once it has been loaded, and from the
+     * materialized leaderboard before that. From the index they carry an ETag and Last-Modified
+     * time taken from the zip code's index generation, and a matching If-None-Match or
+     * If-Modified-Since gets 304 Not Modified.
+     * With a radius, restaurants in every zip code whose centroid lies within that many miles of
+     * the zip code's centroid are ranked together, ties going to the nearer zip code. A zip code
+     * without a known centroid cannot be searched by radius and gets 422 Unprocessable Entity.
      *
-     * @param zipcode The zip code to filter restaurants by.
-     * @param allergy The allergy type to filter restaurants by (peanut, dairy, or egg).
+     * @param zipcode     The zip code to filter restaurants by.
+     * @param allergy     The allergy or allergies to rank by, or "overall".
+     * @param limit       Maximum number of restaurants to return (optional).
+     * @param offset      Number of top-ranked restaurants to skip (optional).
+     * @param radiusMiles Also search zip codes within this many miles (optional).
+     * @param accept      The Accept header, which picks the response format and its ETag.
      * @return JSON response containing a list of restaurants matching the criteria.
      */
     @GetMapping("/search")
     public ResponseEntity<?> searchRestaurants(
-            @RequestParam String zipcode, @RequestParam String allergy) {  
+            @RequestParam String zipcode, @RequestParam String allergy,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Double radiusMiles,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {  
 
         validateZipCode(zipcode);
+        if (limit != null && limit <= 0) {
+            return createErrorResponse("Limit must be positive", HttpStatus.BAD_REQUEST);
+        }
+        if (offset < 0) {
+            return createErrorResponse("Offset cannot be negative", HttpStatus.BAD_REQUEST);
+        }
+
+        Optional<AllergyRanking> ranking = AllergyRanking.fromName(allergy);
+        if (ranking.isEmpty()) {
+            return createErrorResponse("Invalid allergy type", HttpStatus.BAD_REQUEST);  
+        }
+
+        if (radiusMiles != null) {
+            if (!(radiusMiles > 0 && radiusMiles <= geoProperties.getMaxRadiusMiles())) {
+                return createErrorResponse("Radius must be positive and at most "
+                        + geoProperties.getMaxRadiusMiles() + " miles", HttpStatus.BAD_REQUEST);
+            }
+            Optional<Map<String, Double>> distanceByZipCode = zipCodeLocator.within(zipcode, radiusMiles);
+            if (distanceByZipCode.isEmpty()) {
+                return createErrorResponse("No location known for zip code " + zipcode
+                        + ", so it cannot be searched by radius", HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            return searchNearby(distanceByZipCode.get(), ranking.get(), offset, limit, accept);
+        }
+
+        if (!restaurantSearchIndex.isReady()) {
+            return new ResponseEntity<>(
+                    restaurantLeaderboard.search(zipcode, ranking.get(), offset, limit), HttpStatus.OK);
+        }
+
+        RestaurantSearchIndex.Generation generation = restaurantSearchIndex.generation(zipcode);
+        return ResponseEntity.ok()
+                .eTag(NegotiatedETags.of(generation.tag(), accept))
+                .varyBy(NegotiatedETags.VARY)
+                .lastModified(generation.lastModified())
+                .cacheControl(httpCacheProperties.searchCacheControl())
+                .body(restaurantSearchIndex.search(zipcode, ranking.get(), offset, limit));
+    }
+
+    /**
+     * Search for restaurants by name. The query may be the start of a name or contain typos:
+     * restaurants match when their name contains most of the query's trigrams, and the last word
+     * of the query matches as a prefix. Case, accents and punctuation are ignored.
+     * Results are served from the in-memory name index, best match first.
+     *
+     * @param q        The name or partial name to search for.
+     * @param zipcode  Only return restaurants in this zip code (optional).
+     * @param allergy  Only return restaurants scored for this allergy, these allergies or "overall" (optional).
+     * @param minScore Only return restaurants whose score for the allergy is at least this (optional;
+     *                 the overall score when no allergy is given).
+     * @param limit    Maximum number of restaurants to return (optional, capped by the server).
+     * @return JSON response containing the matching restaurants.
+     */
+    @GetMapping("/search/name")
+    public ResponseEntity<?> searchRestaurantsByName(
+            @RequestParam String q,
+            @RequestParam(required = false) String zipcode,
+            @RequestParam(required = false) String allergy,
+            @RequestParam(required = false) Double minScore,
+            @RequestParam(required = false) Integer limit) {
+
+        if (!StringUtils.hasText(q)) {
+            return createErrorResponse("Search query cannot be empty", HttpStatus.BAD_REQUEST);
+        }
+        if (q.length() > nameSearchProperties.getMaxQueryLength()) {
+            return createErrorResponse("Search query cannot be longer than "
+                    + nameSearchProperties.getMaxQueryLength() + " characters", HttpStatus.BAD_REQUEST);
+        }
+        if (zipcode != null) {
+            validateZipCode(zipcode);
+        }
+        if (limit != null && limit <= 0) {
+            return createErrorResponse("Limit must be positive", HttpStatus.BAD_REQUEST);
+        }
+
+        AllergyRanking ranking = null;
+        if (allergy != null) {
+            Optional<AllergyRanking> parsed = AllergyRanking.fromName(allergy);
+            if (parsed.isEmpty()) {
+                return createErrorResponse("Invalid allergy type", HttpStatus.BAD_REQUEST);
+            }
+            ranking = parsed.get();
+        } else if (minScore != null) {
+            ranking = AllergyRanking.OVERALL;
+        }
 
-        Iterable<Restaurant> result;
-        switch (allergy.toLowerCase()) {
-            case "peanut":
-                result = restaurantRepository.findByZipCodeAndPeanutScoreIsNotNullOrderByPeanutScoreDesc(zipcode);
-                break;
-            case "dairy":
-                result = restaurantRepository.findByZipCodeAndDairyScoreIsNotNullOrderByDairyScoreDesc(zipcode);
-                break;
-            case "egg":
-                result = restaurantRepository.findByZipCodeAndEggScoreIsNotNullOrderByEggScoreDesc(zipcode);
-                break;
-            default:
-                return createErrorResponse("Invalid allergy type", HttpStatus.BAD_REQUEST);  
-        }
-
-        return new ResponseEntity<>(result, HttpStatus.OK);
+        if (!restaurantNameIndex.isReady()) {
+            return createErrorResponse("Name search is not available yet", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        int maxResults = limit == null
+                ? nameSearchProperties.getDefaultLimit() : paginationProperties.resolvePageSize(limit);
+        return new ResponseEntity<>(restaurantNameIndex.search(q, zipcode, ranking, minScore,
+                nameSearchProperties.getMinSimilarity(), maxResults), HttpStatus.OK);
+    }
+
+    /**
+     * Search the restaurants of several zip codes at once, from the search index when loaded
+     * and otherwise with a single leaderboard query.
+     *
+     * @param distanceByZipCode Distance of each zip code to search from the search center.
+     * @param ranking           The ranking to rank by.
+     * @param offset            Number of top-ranked restaurants to skip.
+     * @param limit             Maximum number of restaurants to return, or null for all.
+     * @param accept            The Accept header, which picks the response format and its ETag.
+     * @return JSON response containing the ranked restaurants.
+     */
+    private ResponseEntity<?> searchNearby(Map<String, Double> distanceByZipCode, AllergyRanking ranking,
+                                           int offset, Integer limit, String accept) {
+        if (!restaurantSearchIndex.isReady()) {
+            return new ResponseEntity<>(
+                    restaurantLeaderboard.searchNearby(distanceByZipCode, ranking, offset, limit), HttpStatus.OK);
+        }
+
+        RestaurantSearchIndex.Generation generation = restaurantSearchIndex.generation(distanceByZipCode.keySet());
+        return ResponseEntity.ok()
+                .eTag(NegotiatedETags.of(generation.tag(), accept))
+                .varyBy(NegotiatedETags.VARY)
+                .lastModified(generation.lastModified())
+                .cacheControl(httpCacheProperties.searchCacheControl())
+                .body(restaurantSearchIndex.searchNearby(distanceByZipCode, ranking, offset, limit));
     }
 
     /**
      * Validate a new restaurant before saving.
      * Ensures the restaurant has a non-empty name and a valid zip code.
-     * Checks for duplicate restaurants based on name and zip code.
+     * Checks for duplicate restaurants based on name and zip code. Once the name index is loaded
+     * the check is answered from it, which also catches names differing only in case or
+     * punctuation ("Joe's Pizza" and "Joes Pizza"), or as similar as the configured threshold.
      *
      * @param restaurant The restaurant to be validated.
      */
@@ -116,6 +346,16 @@ public class RestaurantController {
         }
         validateZipCode(restaurant.getZipCode());
 
+        if (restaurantNameIndex.isReady()) {
+            Optional<RestaurantSummary> similarRestaurant = restaurantNameIndex.findSimilar(
+                    restaurant.getName(), restaurant.getZipCode(), nameSearchProperties.getDuplicateSimilarity());
+            if (similarRestaurant.isPresent()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Restaurant already exists: "
+                        + similarRestaurant.get().name() + " (ID " + similarRestaurant.get().id() + ")");
+            }
+            return;
+        }
+
         Optional<Restaurant> existingRestaurant =
                 restaurantRepository.findByNameAndZipCode(restaurant.getName(), restaurant.getZipCode());
         if (existingRestaurant.isPresent()) {
@@ -1,8 +1,15 @@
 package com.irened.bitereviewapi.controller;
 
 
+import com.irened.bitereviewapi.config.HttpCacheProperties;
+import com.irened.bitereviewapi.config.NegotiatedETags;
+import com.irened.bitereviewapi.model.AllergyRanking;
 import com.irened.bitereviewapi.model.User;
 import com.irened.bitereviewapi.repository.UserRepository;
+import com.irened.bitereviewapi.service.CachedLookupService;
+import com.irened.bitereviewapi.service.RestaurantLeaderboard;
+import com.irened.bitereviewapi.service.RestaurantSearchIndex;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
@@ -17,9 +24,19 @@ import java.util.Optional;
 @RequestMapping("/api/users")
 public class UserController {
     private final UserRepository userRepository;
-
-    public UserController(UserRepository userRepository) {
+    private final CachedLookupService cachedLookupService;
+    private final RestaurantSearchIndex restaurantSearchIndex;
+    private final RestaurantLeaderboard restaurantLeaderboard;
+    private final HttpCacheProperties httpCacheProperties;
+
+    public UserController(UserRepository userRepository, CachedLookupService cachedLookupService,
+                          RestaurantSearchIndex restaurantSearchIndex, RestaurantLeaderboard restaurantLeaderboard,
+                          HttpCacheProperties httpCacheProperties) {
         this.userRepository = userRepository;
+        this.cachedLookupService = cachedLookupService;
+        this.restaurantSearchIndex = restaurantSearchIndex;
+        this.restaurantLeaderboard = restaurantLeaderboard;
+        this.httpCacheProperties = httpCacheProperties;
     }
 
     /**
@@ -34,6 +51,7 @@ public class UserController {
         validateUser(user);
 
         userRepository.save(user);
+        cachedLookupService.evictUser(user.getDisplayName());
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "User profile created successfully");
@@ -43,7 +61,7 @@ public class UserController {
     /**
      * Retrieve a user profile by their display name.
      * If the user does not exist, a 404 error is returned.
-     * The ID field is excluded from the returned profile for security purposes.
+     * The ID field is never serialized, so it is excluded from the returned profile.
      *
      * @param displayName The unique display name of the user.
      * @return JSON response containing the user profile.
@@ -52,15 +70,64 @@ public class UserController {
     public ResponseEntity<?> getUser(@PathVariable String displayName) {  
         validateDisplayName(displayName);
 
-        Optional<User> optionalUser = userRepository.findByDisplayName(displayName);
+        Optional<User> optionalUser = cachedLookupService.findUser(displayName);
         if (optionalUser.isEmpty()) {
             return createErrorResponse("User not found", HttpStatus.NOT_FOUND);  
         }
 
-        User user = optionalUser.get();
-        user.setId(null); // Exclude ID for privacy
+        return new ResponseEntity<>(optionalUser.get(), HttpStatus.OK);
+    }
+
+    /**
+     * Recommend restaurants in the user's zip code, ranked by the mean of their scores for the
+     * allergies the user is interested in, or by the overall score if the user follows none.
+     * Only restaurants scored for every one of those allergies are included, and each allergy
+     * counts equally, however many reviews it has (see {@link AllergyRanking}).
+     * The ranking for each zip code and combination of allergies is precomputed by the search
+     * index and replaced whenever a restaurant in the zip code is rescored, so no ranking is
+     * computed per request. Before the index has loaded, the materialized leaderboard is used.
+     * Results from the index carry an ETag, and a matching If-None-Match gets 304 Not Modified.
+     *
+     * @param displayName The display name of the user.
+     * @param limit       Maximum number of restaurants to return (optional).
+     * @param offset      Number of top-ranked restaurants to skip (optional).
+     * @param accept      The Accept header, which picks the response format and its ETag.
+     * @return JSON response containing the recommended restaurants.
+     */
+    @GetMapping("/{displayName}/recommendations")
+    public ResponseEntity<?> getRecommendations(@PathVariable String displayName,
+                                                @RequestParam(required = false) Integer limit,
+                                                @RequestParam(defaultValue = "0") int offset,
+                                                @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        validateDisplayName(displayName);
+        if (limit != null && limit <= 0) {
+            return createErrorResponse("Limit must be positive", HttpStatus.BAD_REQUEST);
+        }
+        if (offset < 0) {
+            return createErrorResponse("Offset cannot be negative", HttpStatus.BAD_REQUEST);
+        }
+
+        Optional<User> optionalUser = cachedLookupService.findUser(displayName);
+        if (optionalUser.isEmpty()) {
+            return createErrorResponse("User not found", HttpStatus.NOT_FOUND);
+        }
+        String zipCode = optionalUser.get().getZipCode();
+        if (!StringUtils.hasText(zipCode)) {
+            return createErrorResponse("User has no zip code", HttpStatus.BAD_REQUEST);
+        }
+        AllergyRanking ranking = AllergyRanking.forUser(optionalUser.get());
+
+        if (!restaurantSearchIndex.isReady()) {
+            return new ResponseEntity<>(restaurantLeaderboard.search(zipCode, ranking, offset, limit), HttpStatus.OK);
+        }
 
-        return new ResponseEntity<>(user, HttpStatus.OK);
+        // No Last-Modified: the results also change when the user's profile does
+        RestaurantSearchIndex.Generation generation = restaurantSearchIndex.generation(zipCode);
+        return ResponseEntity.ok()
+                .eTag(NegotiatedETags.of(generation.tag() + "-" + zipCode + "-" + ranking.mask(), accept))
+                .varyBy(NegotiatedETags.VARY)
+                .cacheControl(httpCacheProperties.searchCacheControl())
+                .body(restaurantSearchIndex.search(zipCode, ranking, offset, limit));
     }
 
     /**
@@ -83,6 +150,7 @@ public class UserController {
         User existingUser = optionalUser.get();
         copyUpdatedFields(updatedUser, existingUser);
         userRepository.save(existingUser);
+        cachedLookupService.evictUser(displayName);
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "User information updated successfully");
@@ -98,7 +166,7 @@ public class UserController {
     private void validateUser(User user) {
         validateDisplayName(user.getDisplayName());
 
-        if (userRepository.findByDisplayName(user.getDisplayName()).isPresent()) {
+        if (cachedLookupService.userExists(user.getDisplayName())) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Display name already exists");
         }
     }
@@ -0,0 +1,78 @@
+package com.irened.bitereviewapi.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Actuator endpoint (/actuator/latency) summarizing the in-process request histograms:
+ * latency percentiles per endpoint, controller method, status and SQL statement bucket, and the number of
+ * SQL statements per endpoint. Works without a Prometheus server.
+ */
+@Component
+@Endpoint(id = "latency")
+public class LatencySummaryEndpoint {
+
+    private final MeterRegistry meterRegistry;
+
+    public LatencySummaryEndpoint(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> summary() {
+        List<Map<String, Object>> requests = new ArrayList<>();
+        for (Timer timer : meterRegistry.find("http.server.requests").timers()) {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", timer.getId().getTag("method") + " " + timer.getId().getTag("uri"));
+            row.put("handler", timer.getId().getTag("handler"));
+            row.put("status", timer.getId().getTag("status"));
+            row.put("sqlStatements", timer.getId().getTag("sql.statements"));
+            row.put("count", snapshot.count());
+            row.put("totalMs", snapshot.total(TimeUnit.MILLISECONDS));
+            row.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+            row.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                row.put(percentileName(percentile.percentile()) + "Ms", percentile.value(TimeUnit.MILLISECONDS));
+            }
+            requests.add(row);
+        }
+        requests.sort(Comparator.comparing((Map<String, Object> row) -> (Double) row.get("totalMs")).reversed());
+
+        List<Map<String, Object>> sqlStatements = new ArrayList<>();
+        for (DistributionSummary summary : meterRegistry.find(SqlStatementCountFilter.METRIC_NAME).summaries()) {
+            HistogramSnapshot snapshot = summary.takeSnapshot();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", summary.getId().getTag("method") + " " + summary.getId().getTag("uri"));
+            row.put("count", snapshot.count());
+            row.put("mean", snapshot.mean());
+            row.put("max", snapshot.max());
+            sqlStatements.add(row);
+        }
+        sqlStatements.sort(Comparator.comparing((Map<String, Object> row) -> (Double) row.get("mean")).reversed());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("requests", requests);
+        response.put("sqlStatements", sqlStatements);
+        return response;
+    }
+
+    // 0.5 -> p50, 0.99 -> p99, 0.999 -> p999
+    private static String percentileName(double percentile) {
+        String digits = String.valueOf(percentile).substring(2);
+        return "p" + (digits.length() == 1 ? digits + "0" : digits);
+    }
+}
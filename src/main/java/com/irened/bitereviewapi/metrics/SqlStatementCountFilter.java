@@ -0,0 +1,61 @@
+package com.irened.bitereviewapi.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts the SQL statement count of each request and records how many statements the request
+ * issued, per endpoint, in the http.server.requests.sql.statements summary. An async request
+ * (a streamed response) is recorded when its async dispatch finishes, after the executor thread
+ * writing the response has issued its statements.
+ * Must run before the HTTP observation filter so the count is complete when the request timer stops.
+ */
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    public static final String METRIC_NAME = "http.server.requests.sql.statements";
+
+    private final MeterRegistry meterRegistry;
+
+    public SqlStatementCountFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AtomicInteger count = (AtomicInteger) request.getAttribute(SqlStatementCounter.REQUEST_ATTRIBUTE);
+        if (count == null) {
+            count = new AtomicInteger();
+            request.setAttribute(SqlStatementCounter.REQUEST_ATTRIBUTE, count);
+        }
+        AtomicInteger previous = SqlStatementCounter.bind(count);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlStatementCounter.restore(previous);
+            if (!request.isAsyncStarted()) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                DistributionSummary.builder(METRIC_NAME)
+                        .description("SQL statements issued per request")
+                        .tag("method", request.getMethod())
+                        .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                        .register(meterRegistry)
+                        .record(count.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.irened.bitereviewapi.metrics;
+
+import jakarta.servlet.ServletRequest;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements Hibernate prepares for each HTTP request.
+ * SqlStatementCountFilter starts a count for each request, keeps it in a request attribute and binds
+ * it to the thread handling the request. The task decorator binds it to the async executor thread
+ * that writes a StreamingResponseBody, so statements issued while streaming are counted too.
+ * Statements on threads with no count bound, such as the background score recompute and
+ * leaderboard refresh, are not attributed to any request.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    static final String REQUEST_ATTRIBUTE = SqlStatementCounter.class.getName() + ".count";
+
+    private static final ThreadLocal<AtomicInteger> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        AtomicInteger count = CURRENT.get();
+        if (count != null) {
+            count.incrementAndGet();
+        }
+        return sql;
+    }
+
+    /**
+     * Count the statements of the current thread into the given count until it is restored.
+     *
+     * @return The count bound before, to pass to {@link #restore}.
+     */
+    static AtomicInteger bind(AtomicInteger count) {
+        AtomicInteger previous = CURRENT.get();
+        CURRENT.set(count);
+        return previous;
+    }
+
+    static void restore(AtomicInteger previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Number of statements a request has issued so far, on any thread.
+     */
+    public static int count(ServletRequest request) {
+        return request.getAttribute(REQUEST_ATTRIBUTE) instanceof AtomicInteger count ? count.get() : 0;
+    }
+
+    /**
+     * Decorator for executors running work on behalf of a request: a task counts its statements
+     * into the count of the thread that submitted it.
+     */
+    public static TaskDecorator taskDecorator() {
+        return task -> {
+            AtomicInteger count = CURRENT.get();
+            if (count == null) {
+                return task;
+            }
+            return () -> {
+                AtomicInteger previous = bind(count);
+                try {
+                    task.run();
+                } finally {
+                    restore(previous);
+                }
+            };
+        };
+    }
+
+    /**
+     * Group a statement count into a small set of tag values, so it can be used as a metric tag.
+     *
+     * @param count Number of statements issued by a request.
+     * @return One of "0", "1", "2-5", "6-10" or "11+".
+     */
+    public static String bucket(int count) {
+        if (count <= 1) {
+            return String.valueOf(count);
+        }
+        if (count <= 5) {
+            return "2-5";
+        }
+        return count <= 10 ? "6-10" : "11+";
+    }
+}
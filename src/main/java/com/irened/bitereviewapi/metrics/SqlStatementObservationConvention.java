@@ -0,0 +1,27 @@
+package com.irened.bitereviewapi.metrics;
+
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Adds two tags to the http.server.requests timers: "handler", the controller method that
+ * served the request (so the JSON and NDJSON variants of an endpoint are timed separately),
+ * and "sql.statements", bucketed by SqlStatementCounter, so endpoints that start issuing
+ * extra queries stand out.
+ */
+public class SqlStatementObservationConvention extends DefaultServerRequestObservationConvention {
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        String handlerName = handler instanceof HandlerMethod method
+                ? method.getBeanType().getSimpleName() + "." + method.getMethod().getName()
+                : "none";
+        return super.getLowCardinalityKeyValues(context)
+                .and("handler", handlerName)
+                .and("sql.statements", SqlStatementCounter.bucket(SqlStatementCounter.count(context.getCarrier())));
+    }
+}
@@ -0,0 +1,14 @@
+package com.irened.bitereviewapi.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@Setter
+@RequiredArgsConstructor
+public class AdminReviewBatchAction {
+    private List<AdminReviewDecision> decisions;
+}
@@ -0,0 +1,13 @@
+package com.irened.bitereviewapi.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@Setter
+@RequiredArgsConstructor
+public class AdminReviewDecision {
+    private Long reviewId;
+    private Boolean accepted;
+}
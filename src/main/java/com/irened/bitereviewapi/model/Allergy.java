@@ -0,0 +1,34 @@
+package com.irened.bitereviewapi.model;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+
+public enum Allergy {
+    PEANUT(RestaurantSummary::peanutScore),
+    EGG(RestaurantSummary::eggScore),
+    DAIRY(RestaurantSummary::dairyScore);
+
+    private final Function<RestaurantSummary, Double> restaurantScore;
+
+    Allergy(Function<RestaurantSummary, Double> restaurantScore) {
+        this.restaurantScore = restaurantScore;
+    }
+
+    // The restaurant's average score for this allergy, or null if it has none
+    public Double scoreOf(RestaurantSummary restaurant) {
+        return restaurantScore.apply(restaurant);
+    }
+
+    // Look up an allergy by its case-insensitive name, e.g. "peanut"
+    public static Optional<Allergy> fromName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(valueOf(name.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException ex) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.irened.bitereviewapi.model;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * An order in which restaurants can be ranked: by their overall score, or by one or more allergies
+ * at once. A ranking over several allergies only includes restaurants scored for every one of them,
+ * ordered by the mean of those scores. Each ranking is identified by a bit mask of its allergies
+ * (bit {@code 1 << ordinal}), with 0 standing for the overall score.
+ * <p>
+ * The equal weighting is deliberate. Someone avoiding both peanut and egg is served by a
+ * restaurant only as well as it handles each of them, so neither allergy should outweigh the
+ * other because it happens to have more reviews. A restaurant with no score for one of the
+ * allergies is left out rather than ranked on the rest: an unreviewed allergy is unknown, not
+ * safe. Since the score only depends on the restaurant and the mask, every ranking can be
+ * precomputed once per zip code and shared by all users with the same allergies.
+ *
+ * @param mask Bit mask of the allergies ranked by.
+ */
+public record AllergyRanking(int mask) {
+
+    public static final AllergyRanking OVERALL = new AllergyRanking(0);
+
+    // Every possible ranking, indexed by mask
+    public static final List<AllergyRanking> ALL = IntStream.range(0, 1 << Allergy.values().length)
+            .mapToObj(AllergyRanking::new)
+            .toList();
+
+    public AllergyRanking {
+        if (mask < 0 || mask >= 1 << Allergy.values().length) {
+            throw new IllegalArgumentException("Invalid allergy mask: " + mask);
+        }
+    }
+
+    public static AllergyRanking of(Allergy allergy) {
+        return ALL.get(1 << allergy.ordinal());
+    }
+
+    /**
+     * Look up a ranking by name: "overall", a single allergy such as "peanut", or several
+     * comma-separated allergies such as "peanut,dairy". Names are case-insensitive.
+     *
+     * @param name The ranking name.
+     * @return The ranking, or empty if the name is not valid.
+     */
+    public static Optional<AllergyRanking> fromName(String name) {
+        if (name == null || name.isBlank()) {
+            return Optional.empty();
+        }
+        if (name.trim().toLowerCase(Locale.ROOT).equals("overall")) {
+            return Optional.of(OVERALL);
+        }
+        int mask = 0;
+        for (String part : name.split(",", -1)) {  // -1 keeps a trailing empty name, so "peanut," is rejected
+            Optional<Allergy> allergy = Allergy.fromName(part.trim());
+            if (allergy.isEmpty()) {
+                return Optional.empty();
+            }
+            mask |= 1 << allergy.get().ordinal();
+        }
+        return Optional.of(ALL.get(mask));
+    }
+
+    /**
+     * The ranking for a user's allergy interests: the mean score over the allergies they are
+     * interested in, or the overall score if they follow none.
+     *
+     * @param user The user.
+     * @return The ranking.
+     */
+    public static AllergyRanking forUser(User user) {
+        int mask = 0;
+        if (Boolean.TRUE.equals(user.getInterestedInPeanutAllergies())) {
+            mask |= 1 << Allergy.PEANUT.ordinal();
+        }
+        if (Boolean.TRUE.equals(user.getInterestedInEggAllergies())) {
+            mask |= 1 << Allergy.EGG.ordinal();
+        }
+        if (Boolean.TRUE.equals(user.getInterestedInDairyAllergies())) {
+            mask |= 1 << Allergy.DAIRY.ordinal();
+        }
+        return ALL.get(mask);
+    }
+
+    public Set<Allergy> allergies() {
+        Set<Allergy> allergies = EnumSet.noneOf(Allergy.class);
+        for (Allergy allergy : Allergy.values()) {
+            if ((mask & 1 << allergy.ordinal()) != 0) {
+                allergies.add(allergy);
+            }
+        }
+        return allergies;
+    }
+
+    // The score the restaurant is ranked by, the unweighted mean of its allergy scores, or null if it lacks any of them
+    public Double scoreOf(RestaurantSummary restaurant) {
+        if (mask == 0) {
+            return restaurant.overallScore();
+        }
+        double total = 0;
+        int count = 0;
+        for (Allergy allergy : Allergy.values()) {
+            if ((mask & 1 << allergy.ordinal()) != 0) {
+                Double score = allergy.scoreOf(restaurant);
+                if (score == null) {
+                    return null;
+                }
+                total += score;
+                count++;
+            }
+        }
+        return total / count;
+    }
+
+    /**
+     * Rank restaurants: those with a score for this ranking, highest score first and ties by ID.
+     *
+     * @param restaurants The restaurants to rank.
+     * @return The ranked restaurants.
+     */
+    public List<RestaurantSummary> rank(Collection<RestaurantSummary> restaurants) {
+        return rank(restaurants, Map.of());
+    }
+
+    /**
+     * Rank restaurants spread over several zip codes: those with a score for this ranking, highest
+     * score first, ties by distance and then by ID.
+     *
+     * @param restaurants       The restaurants to rank.
+     * @param distanceByZipCode Distance of each zip code from the search center; missing zip codes count as 0.
+     * @return The ranked restaurants.
+     */
+    public List<RestaurantSummary> rank(Collection<RestaurantSummary> restaurants,
+                                        Map<String, Double> distanceByZipCode) {
+        return restaurants.stream()
+                .filter(restaurant -> scoreOf(restaurant) != null)
+                .sorted(Comparator.comparing((RestaurantSummary restaurant) -> scoreOf(restaurant))
+                        .reversed()
+                        .thenComparingDouble(restaurant -> distanceByZipCode.getOrDefault(restaurant.zipCode(), 0.0))
+                        .thenComparing(RestaurantSummary::id))
+                .toList();
+    }
+}
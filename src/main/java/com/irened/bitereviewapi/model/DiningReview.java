@@ -1,27 +1,37 @@
 package com.irened.bitereviewapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "dining_reviews")  // Specifies the table name
+@Table(name = "dining_reviews",  // Specifies the table name
+        indexes = {
+                @Index(name = "idx_dining_reviews_restaurant_id_status", columnList = "restaurantId, status, id"),
+                @Index(name = "idx_dining_reviews_status", columnList = "status, id"),
+                @Index(name = "idx_dining_reviews_display_name_restaurant_id", columnList = "displayName, restaurantId")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class DiningReview {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;  // Unique database ID
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dining_reviews_seq")
+    @SequenceGenerator(name = "dining_reviews_seq", sequenceName = "dining_reviews_seq", allocationSize = 50)
+    private Long id;  // Unique database ID, allocated in blocks so inserts can be batched
 
     private String displayName;  // User's display name
 
@@ -34,4 +44,8 @@ public class DiningReview {
 
     @Enumerated(EnumType.STRING)
     private ReviewStatus status = ReviewStatus.PENDING; // Default status
+
+    @Version
+    @JsonIgnore
+    private Long version;  // Optimistic lock, incremented on every update
 }
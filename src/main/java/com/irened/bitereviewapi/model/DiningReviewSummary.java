@@ -0,0 +1,15 @@
+package com.irened.bitereviewapi.model;
+
+/**
+ * Read-only view of a dining review returned by list endpoints.
+ * Repository queries returning it select only these columns and load no managed entities.
+ */
+public record DiningReviewSummary(Long id,
+                                  String displayName,
+                                  Long restaurantId,
+                                  Integer peanutScore,
+                                  Integer eggScore,
+                                  Integer dairyScore,
+                                  String commentary,
+                                  ReviewStatus status) {
+}
@@ -0,0 +1,51 @@
+package com.irened.bitereviewapi.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * One place in a zip code's materialized ranking: the restaurant ranked at the given position
+ * for an allergy ranking, best first. Positions start at 1 and have no gaps, so a page of a
+ * ranking is a range of ranks.
+ */
+@Entity
+@Table(name = "restaurant_leaderboard")
+@IdClass(LeaderboardEntry.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntry {
+
+    @Id
+    private String zipCode;
+
+    @Id
+    private int allergyMask;  // See AllergyRanking
+
+    @Id
+    private int rank;
+
+    private Long restaurantId;
+    private double score;  // The score the restaurant is ranked by
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String zipCode;
+        private int allergyMask;
+        private int rank;
+    }
+}
@@ -1,14 +1,28 @@
 package com.irened.bitereviewapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_restaurant_name_zip_code", columnNames = {"name", "zipCode"}),
+        indexes = {
+                @Index(name = "idx_restaurant_zip_code_peanut_score", columnList = "zipCode, peanutScore DESC"),
+                @Index(name = "idx_restaurant_zip_code_egg_score", columnList = "zipCode, eggScore DESC"),
+                @Index(name = "idx_restaurant_zip_code_dairy_score", columnList = "zipCode, dairyScore DESC")
+        })
 @Getter
 @Setter
 @RequiredArgsConstructor
@@ -25,4 +39,28 @@ public class Restaurant {
     private Double eggScore;
     private Double dairyScore;
     private Double overallScore;
+
+    // Running totals over approved reviews, used to update the averages incrementally
+    @JsonIgnore
+    private long peanutScoreSum;
+    @JsonIgnore
+    private long peanutScoreCount;
+    @JsonIgnore
+    private long eggScoreSum;
+    @JsonIgnore
+    private long eggScoreCount;
+    @JsonIgnore
+    private long dairyScoreSum;
+    @JsonIgnore
+    private long dairyScoreCount;
+
+    // Optimistic lock, so a score recompute never overwrites a newer one
+    @Version
+    @JsonIgnore
+    private Long version;
+
+    // Set on insert and on every update that changes the row, including score recomputes
+    @UpdateTimestamp
+    @JsonIgnore
+    private Instant lastModified;
 }
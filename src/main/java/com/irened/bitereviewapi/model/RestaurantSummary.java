@@ -0,0 +1,20 @@
+package com.irened.bitereviewapi.model;
+
+/**
+ * Read-only view of a restaurant returned by list and search endpoints.
+ * Repository queries returning it select only these columns and load no managed entities.
+ */
+public record RestaurantSummary(Long id,
+                                String name,
+                                String zipCode,
+                                Double peanutScore,
+                                Double eggScore,
+                                Double dairyScore,
+                                Double overallScore) {
+
+    public static RestaurantSummary from(Restaurant restaurant) {
+        return new RestaurantSummary(restaurant.getId(), restaurant.getName(), restaurant.getZipCode(),
+                restaurant.getPeanutScore(), restaurant.getEggScore(), restaurant.getDairyScore(),
+                restaurant.getOverallScore());
+    }
+}
@@ -0,0 +1,20 @@
+package com.irened.bitereviewapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ReviewModerationResult {
+    private Long reviewId;
+    private ReviewStatus status;  // New status when the decision was applied
+    private String error;  // Reason when the decision was not applied
+
+    public static ReviewModerationResult updated(Long reviewId, ReviewStatus status) {
+        return new ReviewModerationResult(reviewId, status, null);
+    }
+
+    public static ReviewModerationResult failed(Long reviewId, String error) {
+        return new ReviewModerationResult(reviewId, null, error);
+    }
+}
@@ -0,0 +1,20 @@
+package com.irened.bitereviewapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ReviewSubmissionResult {
+    private int index;  // Position of the review in the submitted batch
+    private Long reviewId;  // ID assigned when the review was accepted
+    private String error;  // Reason when the review was rejected
+
+    public static ReviewSubmissionResult accepted(int index, Long reviewId) {
+        return new ReviewSubmissionResult(index, reviewId, null);
+    }
+
+    public static ReviewSubmissionResult rejected(int index, String error) {
+        return new ReviewSubmissionResult(index, null, error);
+    }
+}
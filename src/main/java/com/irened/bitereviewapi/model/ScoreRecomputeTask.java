@@ -0,0 +1,66 @@
+package com.irened.bitereviewapi.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Outbox row holding a review change that has not been applied to its restaurant's scores yet.
+ * Every review that enters or leaves the approved state adds its own row with the scores to add
+ * or remove; a restaurant may have several until they are applied.
+ */
+@Entity
+@Table(name = "score_recompute_outbox",
+        uniqueConstraints = @UniqueConstraint(name = "uk_score_recompute_outbox_review_id_version",
+                columnNames = {"reviewId", "reviewVersion"}),
+        indexes = {
+                @Index(name = "idx_score_recompute_outbox_restaurant_id", columnList = "restaurantId, enqueuedAt"),
+                @Index(name = "idx_score_recompute_outbox_enqueued_at", columnList = "enqueuedAt")
+        })
+@Getter
+@Setter
+@RequiredArgsConstructor
+public class ScoreRecomputeTask {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long restaurantId;
+    private Instant enqueuedAt;  // When the review change was made
+
+    private Long reviewId;  // Review whose status changed
+    private Long reviewVersion;  // Version of the review the change was made on
+    private Integer scoreSign;  // 1 when the review was approved, -1 when it left the approved state
+    private Integer peanutScore;
+    private Integer eggScore;
+    private Integer dairyScore;
+
+    /**
+     * Outbox row for a review entering or leaving the approved state.
+     * Must be created before the change is flushed, while the review still has the version it was read at.
+     *
+     * @param review The review, before its new status is saved.
+     * @param sign   1 when the review becomes approved, -1 when it stops being approved.
+     */
+    public static ScoreRecomputeTask forReview(DiningReview review, int sign) {
+        ScoreRecomputeTask task = new ScoreRecomputeTask();
+        task.setRestaurantId(review.getRestaurantId());
+        task.setReviewId(review.getId());
+        task.setReviewVersion(review.getVersion());
+        task.setScoreSign(sign);
+        task.setPeanutScore(review.getPeanutScore());
+        task.setEggScore(review.getEggScore());
+        task.setDairyScore(review.getDairyScore());
+        return task;
+    }
+}
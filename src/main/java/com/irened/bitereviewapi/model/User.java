@@ -1,22 +1,26 @@
 package com.irened.bitereviewapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "users") 
+@Table(name = "users",
+        uniqueConstraints = @UniqueConstraint(name = "uk_users_display_name", columnNames = "displayName"))
 @Getter
 @Setter
 @RequiredArgsConstructor
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore  // Database ID is never exposed or accepted over the API
     private Long id;
 
     private String displayName; 
@@ -1,19 +1,91 @@
 package com.irened.bitereviewapi.repository;
 
 import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.DiningReviewSummary;
 import com.irened.bitereviewapi.model.ReviewStatus;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface DiningReviewRepository extends CrudRepository<DiningReview, Long> {
 
+    // Write pending changes now, so a lost optimistic locking race surfaces as OptimisticLockingFailureException
+    void flush();
+
     // Fetch reviews by restaurant ID and specific status
-    List<DiningReview> findByRestaurantIdAndStatus(Long restaurantId, ReviewStatus status);
+    @Transactional(readOnly = true)
+    List<DiningReviewSummary> findByRestaurantIdAndStatus(Long restaurantId, ReviewStatus status);
 
     // Fetch all reviews by status
-    List<DiningReview> findAllByStatus(ReviewStatus status);
+    @Transactional(readOnly = true)
+    List<DiningReviewSummary> findAllByStatus(ReviewStatus status);
 
     // Fetch all reviews by restaurant ID without filtering by status
-    List<DiningReview> findByRestaurantId(Long restaurantId);
-}
+    @Transactional(readOnly = true)
+    List<DiningReviewSummary> findByRestaurantId(Long restaurantId);
+
+    // Fetch the next page of reviews with a status, in ID order after the given cursor
+    @Transactional(readOnly = true)
+    List<DiningReviewSummary> findByStatusAndIdGreaterThanOrderByIdAsc(ReviewStatus status, Long afterId, Limit limit);
+
+    // Fetch the next page of a restaurant's reviews, in ID order after the given cursor
+    @Transactional(readOnly = true)
+    List<DiningReviewSummary> findByRestaurantIdAndIdGreaterThanOrderByIdAsc(Long restaurantId, Long afterId, Limit limit);
+
+    // Fetch the next page of a restaurant's reviews with a status, in ID order after the given cursor
+    @Transactional(readOnly = true)
+    List<DiningReviewSummary> findByRestaurantIdAndStatusAndIdGreaterThanOrderByIdAsc(Long restaurantId,
+                                                                                      ReviewStatus status,
+                                                                                      Long afterId, Limit limit);
 
+    // Stream reviews with a status in ID order; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<DiningReviewSummary> streamByStatusAndIdGreaterThanOrderByIdAsc(ReviewStatus status, Long afterId);
+
+    // Stream a restaurant's reviews in ID order; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<DiningReviewSummary> streamByRestaurantIdOrderByIdAsc(Long restaurantId);
+
+    // Stream a restaurant's reviews with a status in ID order; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<DiningReviewSummary> streamByRestaurantIdAndStatusOrderByIdAsc(Long restaurantId, ReviewStatus status);
+
+    // Stream every review in ID order; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<DiningReviewSummary> streamAllByOrderByIdAsc();
+
+    // Fetch the commentary of each review a user wrote for a restaurant
+    @Transactional(readOnly = true)
+    @Query("SELECT r.commentary FROM DiningReview r "
+            + "WHERE r.displayName = :displayName AND r.restaurantId = :restaurantId")
+    List<String> findCommentariesByDisplayNameAndRestaurantId(@Param("displayName") String displayName,
+                                                              @Param("restaurantId") Long restaurantId);
+
+    // Sum and count each allergy score for a restaurant's reviews with the given status
+    @Query("SELECT r.restaurantId AS restaurantId, "
+            + "COALESCE(SUM(r.peanutScore), 0) AS peanutScoreSum, COUNT(r.peanutScore) AS peanutScoreCount, "
+            + "COALESCE(SUM(r.eggScore), 0) AS eggScoreSum, COUNT(r.eggScore) AS eggScoreCount, "
+            + "COALESCE(SUM(r.dairyScore), 0) AS dairyScoreSum, COUNT(r.dairyScore) AS dairyScoreCount "
+            + "FROM DiningReview r WHERE r.restaurantId = :restaurantId AND r.status = :status "
+            + "GROUP BY r.restaurantId")
+    Optional<ScoreTotals> sumScoresByRestaurantIdAndStatus(@Param("restaurantId") Long restaurantId,
+                                                           @Param("status") ReviewStatus status);
+
+    // Sum and count each allergy score per restaurant for all reviews with the given status
+    @Query("SELECT r.restaurantId AS restaurantId, "
+            + "COALESCE(SUM(r.peanutScore), 0) AS peanutScoreSum, COUNT(r.peanutScore) AS peanutScoreCount, "
+            + "COALESCE(SUM(r.eggScore), 0) AS eggScoreSum, COUNT(r.eggScore) AS eggScoreCount, "
+            + "COALESCE(SUM(r.dairyScore), 0) AS dairyScoreSum, COUNT(r.dairyScore) AS dairyScoreCount "
+            + "FROM DiningReview r WHERE r.status = :status GROUP BY r.restaurantId")
+    List<ScoreTotals> sumScoresByStatusGroupByRestaurant(@Param("status") ReviewStatus status);
+}
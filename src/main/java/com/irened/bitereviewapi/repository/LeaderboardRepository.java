@@ -0,0 +1,42 @@
+package com.irened.bitereviewapi.repository;
+
+import com.irened.bitereviewapi.model.LeaderboardEntry;
+import com.irened.bitereviewapi.model.RestaurantSummary;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LeaderboardRepository extends JpaRepository<LeaderboardEntry, LeaderboardEntry.Key> {
+
+    // Fetch the restaurants ranked after the given position in a zip code's ranking, best first
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.irened.bitereviewapi.model.RestaurantSummary(r.id, r.name, r.zipCode, "
+            + "r.peanutScore, r.eggScore, r.dairyScore, r.overallScore) "
+            + "FROM LeaderboardEntry e JOIN Restaurant r ON r.id = e.restaurantId "
+            + "WHERE e.zipCode = :zipCode AND e.allergyMask = :allergyMask AND e.rank > :offset "
+            + "ORDER BY e.rank")
+    List<RestaurantSummary> findRanked(@Param("zipCode") String zipCode, @Param("allergyMask") int allergyMask,
+                                       @Param("offset") int offset, Limit limit);
+
+    // Fetch the restaurants ranked up to the given position in each of the zip codes' rankings, in no particular order.
+    // The rank bound is written as an expression so H2 looks up the zip codes in the primary key instead of
+    // scanning it for the rank range.
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.irened.bitereviewapi.model.RestaurantSummary(r.id, r.name, r.zipCode, "
+            + "r.peanutScore, r.eggScore, r.dairyScore, r.overallScore) "
+            + "FROM LeaderboardEntry e JOIN Restaurant r ON r.id = e.restaurantId "
+            + "WHERE e.zipCode IN :zipCodes AND e.allergyMask = :allergyMask AND e.rank + 0 <= :maxRank")
+    List<RestaurantSummary> findRankedIn(@Param("zipCodes") Collection<String> zipCodes,
+                                         @Param("allergyMask") int allergyMask, @Param("maxRank") int maxRank);
+
+    // Delete every ranking of the given zip codes
+    @Modifying
+    @Query("DELETE FROM LeaderboardEntry e WHERE e.zipCode IN :zipCodes")
+    int deleteByZipCodeIn(@Param("zipCodes") Collection<String> zipCodes);
+}
@@ -1,21 +1,50 @@
 package com.irened.bitereviewapi.repository;
 
 import com.irened.bitereviewapi.model.Restaurant;
-import org.springframework.data.repository.CrudRepository;
+import com.irened.bitereviewapi.model.RestaurantSummary;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface RestaurantRepository extends CrudRepository<Restaurant, Long> {
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
     // Find a restaurant by its name and zip code
     Optional<Restaurant> findByNameAndZipCode(String name, String zipCode);
 
-    // Fetch restaurants by zip code where dairy score is available, ordered by dairy score
-    List<Restaurant> findByZipCodeAndDairyScoreIsNotNullOrderByDairyScoreDesc(String zipCode);
+    // Fetch the restaurants in any of the given zip codes
+    @Transactional(readOnly = true)
+    List<RestaurantSummary> findByZipCodeIn(Collection<String> zipCodes);
+
+    // Return every zip code that has restaurants
+    @Query("SELECT DISTINCT r.zipCode FROM Restaurant r WHERE r.zipCode IS NOT NULL")
+    List<String> findDistinctZipCodes();
+
+    // Return which of the given restaurant IDs exist
+    @Query("SELECT r.id FROM Restaurant r WHERE r.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Fetch a page of restaurants without counting the total number of rows
+    @Transactional(readOnly = true)
+    Slice<RestaurantSummary> findAllBy(Pageable pageable);
 
-    // Fetch restaurants by zip code where egg score is available, ordered by egg score
-    List<Restaurant> findByZipCodeAndEggScoreIsNotNullOrderByEggScoreDesc(String zipCode);
+    // Fetch the next page of restaurants in ID order after the given cursor
+    @Transactional(readOnly = true)
+    List<RestaurantSummary> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
 
-    // Fetch restaurants by zip code where peanut score is available, ordered by peanut score
-    List<Restaurant> findByZipCodeAndPeanutScoreIsNotNullOrderByPeanutScoreDesc(String zipCode);
+    // Stream all restaurants in ID order; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<RestaurantSummary> streamAllByOrderByIdAsc();
 }
@@ -0,0 +1,26 @@
+package com.irened.bitereviewapi.repository;
+
+import com.irened.bitereviewapi.model.ScoreRecomputeTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface ScoreRecomputeOutboxRepository extends JpaRepository<ScoreRecomputeTask, Long> {
+
+    // Pending changes of the given restaurants
+    List<ScoreRecomputeTask> findByRestaurantIdIn(Collection<Long> restaurantIds);
+
+    // Delete exactly the rows a recompute read, so changes committed while it ran are kept
+    @Modifying
+    @Query("DELETE FROM ScoreRecomputeTask t WHERE t.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    // Time of the oldest change still waiting for a recompute, or null when nothing is pending
+    @Query("SELECT MIN(t.enqueuedAt) FROM ScoreRecomputeTask t")
+    Instant findOldestEnqueuedAt();
+}
@@ -0,0 +1,18 @@
+package com.irened.bitereviewapi.repository;
+
+/**
+ * Projection holding per-allergy score sums and counts for a restaurant's reviews.
+ * Counts only include reviews where the corresponding score was provided.
+ */
+public interface ScoreTotals {
+    Long getRestaurantId();
+
+    Long getPeanutScoreSum();
+    Long getPeanutScoreCount();
+
+    Long getEggScoreSum();
+    Long getEggScoreCount();
+
+    Long getDairyScoreSum();
+    Long getDairyScoreCount();
+}
@@ -2,8 +2,12 @@ package com.irened.bitereviewapi.repository;
 
 import com.irened.bitereviewapi.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -12,4 +16,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     // Check if a user with a specific display name already exists
     boolean existsByDisplayName(String displayName);
+
+    // Return which of the given display names belong to existing users
+    @Query("SELECT u.displayName FROM User u WHERE u.displayName IN :displayNames")
+    Set<String> findExistingDisplayNames(@Param("displayNames") Collection<String> displayNames);
 }
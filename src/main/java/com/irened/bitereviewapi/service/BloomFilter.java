@@ -0,0 +1,82 @@
+package com.irened.bitereviewapi.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over 64-bit hashes. Each key sets k bits chosen by double hashing
+ * of the two halves of its hash, so the hash must already be well mixed. Bits are only ever set,
+ * with atomic ORs, so concurrent additions and lookups need no lock.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashFunctions;
+    private final AtomicLong insertions = new AtomicLong();
+
+    /**
+     * Size a filter for an expected number of keys and false-positive rate.
+     *
+     * @param expectedInsertions Keys the filter should hold.
+     * @param falsePositiveRate  False-positive rate wanted once it holds them, between 0 and 1.
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long wantedBits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (wantedBits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bits = (long) wordCount * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+    }
+
+    public void put(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bits);
+            long mask = 1L << bit;
+            words.getAndAccumulate((int) (bit >>> 6), mask, (word, set) -> word | set);
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * Whether the key may have been added; false means it certainly was not.
+     */
+    public boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bits;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    public long insertions() {
+        return insertions.get();
+    }
+
+    /**
+     * Expected false-positive rate at the filter's current fill: the chance that all k bits of a
+     * new key are already set.
+     */
+    public double expectedFalsePositiveRate() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) set / bits, hashFunctions);
+    }
+}
@@ -0,0 +1,80 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.User;
+import com.irened.bitereviewapi.repository.RestaurantRepository;
+import com.irened.bitereviewapi.repository.UserRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+
+/**
+ * Read-through cache over the restaurant and user lookups made on every request.
+ * Entries are bounded in size and age (see spring.cache.caffeine.spec) and evicted
+ * as soon as the underlying row changes. Cached entities are shared between requests
+ * and must be treated as read-only; load through the repository before modifying.
+ */
+@Service
+public class CachedLookupService {
+
+    public static final String RESTAURANTS_CACHE = "restaurants";
+    public static final String USERS_CACHE = "users";
+    public static final String USER_EXISTS_CACHE = "userExists";
+
+    private final RestaurantRepository restaurantRepository;
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+
+    public CachedLookupService(RestaurantRepository restaurantRepository,
+                               UserRepository userRepository,
+                               CacheManager cacheManager) {
+        this.restaurantRepository = restaurantRepository;
+        this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    // Find a restaurant by ID, served from the cache when possible
+    @Cacheable(RESTAURANTS_CACHE)
+    public Optional<Restaurant> findRestaurant(Long id) {
+        return restaurantRepository.findById(id);
+    }
+
+    // Find a user by display name, served from the cache when possible
+    @Cacheable(USERS_CACHE)
+    public Optional<User> findUser(String displayName) {
+        return userRepository.findByDisplayName(displayName);
+    }
+
+    // Check whether a user exists, served from the cache when possible
+    @Cacheable(USER_EXISTS_CACHE)
+    public boolean userExists(String displayName) {
+        return userRepository.existsByDisplayName(displayName);
+    }
+
+    // Drop cached entries for a user after it was created or updated
+    @Caching(evict = {
+            @CacheEvict(cacheNames = USERS_CACHE),
+            @CacheEvict(cacheNames = USER_EXISTS_CACHE)
+    })
+    public void evictUser(String displayName) {
+    }
+
+    /**
+     * Drop the cached restaurant once the change that triggered the event commits.
+     *
+     * @param event The restaurant update.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantUpdated(RestaurantUpdatedEvent event) {
+        Cache cache = cacheManager.getCache(RESTAURANTS_CACHE);
+        if (cache != null) {
+            cache.evict(event.restaurant().getId());
+        }
+    }
+}
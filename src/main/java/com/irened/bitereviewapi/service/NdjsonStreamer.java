@@ -0,0 +1,68 @@
+package com.irened.bitereviewapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes query results to the response as newline-delimited JSON while they are read
+ * from the database. Queries should return read-only projections rather than entities,
+ * so nothing accumulates in the persistence context and memory use does not grow with
+ * the number of rows.
+ */
+@Component
+public class NdjsonStreamer {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+    public static final MediaType CONTENT_TYPE = MediaType.parseMediaType(MEDIA_TYPE);  // Set on streamed responses, which no converter labels
+
+    private static final int FLUSH_INTERVAL = 100;  // Rows written between flushes to the client
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter objectWriter;
+
+    public NdjsonStreamer(PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Build a response body that streams the rows produced by the given query.
+     * The query runs inside a read-only transaction on the thread writing the response.
+     *
+     * @param query Supplier opening the repository stream.
+     * @return A streaming response body writing one JSON document per line.
+     */
+    public <T> StreamingResponseBody stream(Supplier<Stream<T>> query) {
+        return outputStream -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<T> rows = query.get()) {
+                Iterator<T> iterator = rows.iterator();
+                int written = 0;
+                while (iterator.hasNext()) {
+                    T row = iterator.next();
+                    outputStream.write(objectWriter.writeValueAsBytes(row));
+                    outputStream.write('\n');
+
+                    if (++written % FLUSH_INTERVAL == 0) {
+                        outputStream.flush();
+                    }
+                }
+                outputStream.flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+}
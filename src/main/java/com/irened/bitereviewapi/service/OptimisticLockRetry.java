@@ -0,0 +1,37 @@
+package com.irened.bitereviewapi.service;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.function.Supplier;
+
+/**
+ * Re-runs an action that lost an optimistic locking race, a bounded number of times.
+ * The action must run in its own transaction, so each attempt reads the current state of the rows.
+ */
+public final class OptimisticLockRetry {
+
+    public static final int DEFAULT_ATTEMPTS = 3;
+
+    private OptimisticLockRetry() {
+    }
+
+    /**
+     * Run the action, retrying it when another transaction updated the same row first.
+     *
+     * @param maxAttempts How many times to run the action at most.
+     * @param action      The transactional action.
+     * @return The action's result.
+     * @throws OptimisticLockingFailureException If the last attempt also lost the race.
+     */
+    public static <T> T run(int maxAttempts, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    throw ex;
+                }
+            }
+        }
+    }
+}
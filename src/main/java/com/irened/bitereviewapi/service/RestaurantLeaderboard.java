@@ -0,0 +1,208 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.model.AllergyRanking;
+import com.irened.bitereviewapi.model.LeaderboardEntry;
+import com.irened.bitereviewapi.model.RestaurantSummary;
+import com.irened.bitereviewapi.repository.LeaderboardRepository;
+import com.irened.bitereviewapi.repository.RestaurantRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the materialized per-zip-code rankings in the restaurant_leaderboard table.
+ * When a restaurant is added or its scores change, its zip code is marked stale once the change
+ * commits. A single background thread then re-ranks stale zip codes from the committed scores,
+ * replacing their rows in one transaction, so two changes in the same zip code never write
+ * conflicting rankings. Every zip code is marked stale at startup to repair rankings missed by a
+ * crash; the existing rows keep serving reads in the meantime.
+ */
+@Service
+public class RestaurantLeaderboard {
+
+    private static final Logger log = LoggerFactory.getLogger(RestaurantLeaderboard.class);
+
+    private static final int ZIP_CODES_PER_TRANSACTION = 200;
+    private static final long RETRY_DELAY_SECONDS = 1;
+
+    private final LeaderboardRepository leaderboardRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Set<String> staleZipCodes = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService refresher =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("leaderboard-refresh-"));
+
+    public RestaurantLeaderboard(LeaderboardRepository leaderboardRepository,
+                                 RestaurantRepository restaurantRepository,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager) {
+        this.leaderboardRepository = leaderboardRepository;
+        this.restaurantRepository = restaurantRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Mark every zip code for re-ranking, once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        markStale(restaurantRepository.findDistinctZipCodes());
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Mark the restaurant's zip code for re-ranking once the change that triggered the event commits.
+     *
+     * @param event The restaurant update.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantUpdated(RestaurantUpdatedEvent event) {
+        String zipCode = event.restaurant().getZipCode();
+        if (zipCode != null) {
+            markStale(List.of(zipCode));
+        }
+    }
+
+    /**
+     * Read a page of a zip code's ranking.
+     *
+     * @param zipCode The zip code to search.
+     * @param ranking The ranking to read.
+     * @param offset  Number of top-ranked restaurants to skip.
+     * @param limit   Maximum number of restaurants to return, or null for all.
+     * @return The ranked restaurants, best first.
+     */
+    public List<RestaurantSummary> search(String zipCode, AllergyRanking ranking, int offset, Integer limit) {
+        return leaderboardRepository.findRanked(zipCode, ranking.mask(), offset,
+                limit == null ? Limit.unlimited() : Limit.of(limit));
+    }
+
+    /**
+     * Read a page of the combined ranking of several zip codes, fetched with one query and merged
+     * by score, then by distance from the search center. A page can only hold restaurants ranked
+     * within its end in their own zip code, so no zip code's ranking is read past it.
+     *
+     * @param distanceByZipCode Distance of each zip code to search from the search center.
+     * @param ranking           The ranking to read.
+     * @param offset            Number of top-ranked restaurants to skip.
+     * @param limit             Maximum number of restaurants to return, or null for all.
+     * @return The ranked restaurants, best first.
+     */
+    public List<RestaurantSummary> searchNearby(Map<String, Double> distanceByZipCode, AllergyRanking ranking,
+                                                int offset, Integer limit) {
+        int end = limit == null ? Integer.MAX_VALUE : (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        List<RestaurantSummary> ranked = ranking.rank(
+                leaderboardRepository.findRankedIn(distanceByZipCode.keySet(), ranking.mask(), end), distanceByZipCode);
+        int from = Math.min(ranked.size(), offset);
+        return ranked.subList(from, Math.min(ranked.size(), end));
+    }
+
+    /**
+     * Number of zip codes waiting to be re-ranked.
+     */
+    public int pendingCount() {
+        return staleZipCodes.size();
+    }
+
+    /**
+     * Wait until every zip code marked so far has been re-ranked.
+     *
+     * @param timeout How long to wait at most.
+     * @return Whether no zip code was left stale before the timeout.
+     */
+    public boolean awaitRefreshed(Duration timeout) throws InterruptedException {
+        try {
+            refresher.submit(() -> { }).get(timeout.toNanos(), TimeUnit.NANOSECONDS);  // Runs after the pending refreshes
+        } catch (ExecutionException | TimeoutException ex) {
+            return false;
+        }
+        return staleZipCodes.isEmpty();
+    }
+
+    private void markStale(Collection<String> zipCodes) {
+        if (staleZipCodes.addAll(zipCodes)) {
+            refresher.execute(this::refreshStale);
+        }
+    }
+
+    // Re-rank every stale zip code, a bounded number per transaction
+    private void refreshStale() {
+        List<String> zipCodes = new ArrayList<>(ZIP_CODES_PER_TRANSACTION);
+        Iterator<String> stale = staleZipCodes.iterator();
+        while (stale.hasNext()) {
+            zipCodes.add(stale.next());
+            stale.remove();
+            if (zipCodes.size() == ZIP_CODES_PER_TRANSACTION) {
+                refresh(zipCodes);
+                zipCodes.clear();
+            }
+        }
+        refresh(zipCodes);
+    }
+
+    private void refresh(List<String> zipCodes) {
+        if (zipCodes.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> rank(zipCodes));
+        } catch (RuntimeException ex) {
+            log.warn("Leaderboard refresh failed for {} zip codes, will retry", zipCodes.size(), ex);
+            staleZipCodes.addAll(zipCodes);
+            refresher.schedule(this::refreshStale, RETRY_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Replace every ranking of the given zip codes with one computed from the current scores.
+     */
+    private void rank(List<String> zipCodes) {
+        Map<String, List<RestaurantSummary>> restaurantsByZipCode = restaurantRepository.findByZipCodeIn(zipCodes)
+                .stream()
+                .collect(Collectors.groupingBy(RestaurantSummary::zipCode));
+        leaderboardRepository.deleteByZipCodeIn(zipCodes);
+
+        restaurantsByZipCode.forEach((zipCode, restaurants) -> {
+            for (AllergyRanking ranking : AllergyRanking.ALL) {
+                int rank = 0;
+                for (RestaurantSummary restaurant : ranking.rank(restaurants)) {
+                    entityManager.persist(new LeaderboardEntry(zipCode, ranking.mask(), ++rank,
+                            restaurant.id(), ranking.scoreOf(restaurant)));
+                }
+            }
+        });
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,371 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.model.AllergyRanking;
+import com.irened.bitereviewapi.model.RestaurantSummary;
+import com.irened.bitereviewapi.repository.RestaurantRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory trigram index over restaurant names, answering partial and misspelled name searches
+ * without a table scan. Names are normalized (case, accents and apostrophes dropped, other
+ * punctuation treated as spaces) and split into words; each word contributes its trigrams, padded
+ * with two leading spaces and one trailing space. Every restaurant gets a dense document number, and
+ * each trigram maps to an ascending int array of the documents containing it. A search merges the
+ * posting lists of the query's trigrams and counts how many each document shares.
+ * The last word of a query is not padded at the end, so it matches as a prefix.
+ */
+@Component
+public class RestaurantNameIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final RestaurantRepository restaurantRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, PostingList> postingsByTrigram = new HashMap<>();
+    private final Map<Long, Integer> documentByRestaurantId = new HashMap<>();
+    private RestaurantSummary[] restaurants = new RestaurantSummary[INITIAL_CAPACITY];  // By document; null once replaced
+    private String[] normalizedNames = new String[INITIAL_CAPACITY];
+    private int[] trigramCounts = new int[INITIAL_CAPACITY];  // Distinct trigrams of each document's name
+    private int documents = 0;
+    private volatile boolean ready = false;
+
+    public RestaurantNameIndex(RestaurantRepository restaurantRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.restaurantRepository = restaurantRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Index every restaurant from the repository once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postingsByTrigram.clear();
+            documentByRestaurantId.clear();
+            Arrays.fill(restaurants, 0, documents, null);
+            documents = 0;
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<RestaurantSummary> all = restaurantRepository.streamAllByOrderByIdAsc()) {
+                    all.forEach(this::put);
+                }
+            });
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Whether the index has been loaded and can serve searches.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Add or refresh a restaurant in the index once the change that triggered the event commits.
+     *
+     * @param event The restaurant update.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantUpdated(RestaurantUpdatedEvent event) {
+        lock.writeLock().lock();
+        try {
+            put(RestaurantSummary.from(event.restaurant()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the restaurants whose names contain most of the query's trigrams, best match first.
+     * A restaurant matches when it shares at least minSimilarity of the query's trigrams; matches
+     * are ordered by that share, then by how closely the whole name matches, then by ID.
+     *
+     * @param query         The partial name to search for.
+     * @param zipCode       Only return restaurants in this zip code, or null for all.
+     * @param ranking       Only return restaurants scored for this ranking, or null for all.
+     * @param minScore      Only return restaurants whose score for the ranking is at least this, or null.
+     * @param minSimilarity Share of the query's trigrams a name must contain, between 0 and 1.
+     * @param limit         Maximum number of restaurants to return.
+     * @return The matching restaurants.
+     */
+    public List<RestaurantSummary> search(String query, String zipCode, AllergyRanking ranking, Double minScore,
+                                          double minSimilarity, int limit) {
+        long[] trigrams = trigrams(normalize(query), true);
+        if (trigrams.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        int minShared = Math.max(1, (int) Math.ceil(minSimilarity * trigrams.length));
+        List<Match> matches = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            merge(trigrams, minShared, (document, shared) -> {
+                RestaurantSummary restaurant = restaurants[document];
+                if (restaurant == null || zipCode != null && !zipCode.equals(restaurant.zipCode())) {
+                    return;
+                }
+                if (ranking != null) {
+                    Double score = ranking.scoreOf(restaurant);
+                    if (score == null || minScore != null && score < minScore) {
+                        return;
+                    }
+                }
+                matches.add(new Match(restaurant, (double) shared / trigrams.length,
+                        jaccard(shared, trigrams.length, trigramCounts[document])));
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return matches.stream()
+                .sorted(Comparator.comparingDouble(Match::coverage).reversed()
+                        .thenComparing(Comparator.comparingDouble(Match::similarity).reversed())
+                        .thenComparing(match -> match.restaurant().id()))
+                .limit(limit)
+                .map(Match::restaurant)
+                .toList();
+    }
+
+    /**
+     * Find the restaurant in a zip code whose name is most similar to the given one, measured as
+     * the share of trigrams the two names have in common out of all the trigrams of either.
+     * Names differing only in case, accents, apostrophes or punctuation have a similarity of 1.
+     *
+     * @param name          The name of the new restaurant.
+     * @param zipCode       The zip code of the new restaurant.
+     * @param minSimilarity Least similarity to report, between 0 and 1.
+     * @return The most similar restaurant, or empty if none reaches the similarity.
+     */
+    public Optional<RestaurantSummary> findSimilar(String name, String zipCode, double minSimilarity) {
+        long[] trigrams = trigrams(normalize(name), false);
+        if (trigrams.length == 0) {
+            return Optional.empty();
+        }
+        // Jaccard similarity s needs at least s * |query| shared trigrams
+        int minShared = Math.max(1, (int) Math.ceil(minSimilarity * trigrams.length - 1e-9));
+        RestaurantSummary[] best = new RestaurantSummary[1];
+        double[] bestSimilarity = {-1};
+
+        lock.readLock().lock();
+        try {
+            merge(trigrams, minShared, (document, shared) -> {
+                RestaurantSummary restaurant = restaurants[document];
+                if (restaurant == null || !zipCode.equals(restaurant.zipCode())) {
+                    return;
+                }
+                double similarity = jaccard(shared, trigrams.length, trigramCounts[document]);
+                if (similarity >= minSimilarity && similarity > bestSimilarity[0]) {
+                    best[0] = restaurant;
+                    bestSimilarity[0] = similarity;
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Optional.ofNullable(best[0]);
+    }
+
+    // Index a restaurant, replacing its previous document if its name changed; callers hold the write lock
+    private void put(RestaurantSummary restaurant) {
+        String normalized = normalize(restaurant.name());
+        Integer existing = documentByRestaurantId.get(restaurant.id());
+        if (existing != null) {
+            if (normalized.equals(normalizedNames[existing])) {
+                restaurants[existing] = restaurant;  // Same trigrams, so only the scores and zip code change
+                return;
+            }
+            restaurants[existing] = null;  // Stays in its posting lists, but is skipped by searches
+        }
+
+        if (documents == restaurants.length) {
+            restaurants = Arrays.copyOf(restaurants, documents * 2);
+            normalizedNames = Arrays.copyOf(normalizedNames, documents * 2);
+            trigramCounts = Arrays.copyOf(trigramCounts, documents * 2);
+        }
+        int document = documents++;
+        long[] trigrams = trigrams(normalized, false);
+        restaurants[document] = restaurant;
+        normalizedNames[document] = normalized;
+        trigramCounts[document] = trigrams.length;
+        documentByRestaurantId.put(restaurant.id(), document);
+        for (long trigram : trigrams) {
+            postingsByTrigram.computeIfAbsent(trigram, key -> new PostingList()).add(document);
+        }
+    }
+
+    /**
+     * Report each document found in at least minShared of the trigrams' posting lists, with the
+     * number of lists it was found in, in document order. A document in minShared of n lists must
+     * be in one of the n - minShared + 1 shortest, so only those are merged to find candidates;
+     * the longer, more common trigrams are then checked by binary search. Callers hold the read lock.
+     */
+    private void merge(long[] trigrams, int minShared, DocumentConsumer consumer) {
+        List<PostingList> lists = new ArrayList<>(trigrams.length);
+        for (long trigram : trigrams) {
+            PostingList postings = postingsByTrigram.get(trigram);
+            if (postings != null) {
+                lists.add(postings);
+            }
+        }
+        if (lists.size() < minShared) {
+            return;  // No document can be in enough lists
+        }
+        lists.sort(Comparator.comparingInt(postings -> postings.size));
+        int candidateLists = lists.size() - minShared + 1;
+
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(candidateLists);
+        for (PostingList postings : lists.subList(0, candidateLists)) {
+            cursors.add(new Cursor(postings.documents, postings.size));
+        }
+        while (!cursors.isEmpty()) {
+            int document = cursors.peek().current();
+            int shared = 0;
+            while (!cursors.isEmpty() && cursors.peek().current() == document) {
+                Cursor cursor = cursors.poll();
+                shared++;
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+            for (int i = candidateLists; i < lists.size() && shared + lists.size() - i >= minShared; i++) {
+                PostingList postings = lists.get(i);
+                if (Arrays.binarySearch(postings.documents, 0, postings.size, document) >= 0) {
+                    shared++;
+                }
+            }
+            if (shared >= minShared) {
+                consumer.accept(document, shared);
+            }
+        }
+    }
+
+    private static double jaccard(int shared, int queryTrigrams, int documentTrigrams) {
+        return (double) shared / (queryTrigrams + documentTrigrams - shared);
+    }
+
+    /**
+     * Normalize a name for indexing: lower case, accents and apostrophes removed, and any other
+     * character that is not a letter or digit replaced by a single space.
+     */
+    static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK || c == '\'' || c == '’') {
+                continue;  // "Joe's" and "Joes" index alike
+            }
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+                space = false;
+            } else if (!space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        int length = normalized.length();
+        return space && length > 0 ? normalized.substring(0, length - 1) : normalized.toString();
+    }
+
+    /**
+     * Distinct trigrams of a normalized name, each packed into a long, in ascending order.
+     *
+     * @param normalized The normalized name.
+     * @param prefix     Whether to leave the last word unpadded at the end, so it matches as a prefix.
+     */
+    static long[] trigrams(String normalized, boolean prefix) {
+        if (normalized.isEmpty()) {
+            return new long[0];
+        }
+        String[] words = normalized.split(" ");
+        long[] trigrams = new long[normalized.length() + 3 * words.length];
+        int count = 0;
+        for (int w = 0; w < words.length; w++) {
+            String padded = "  " + words[w] + (prefix && w == words.length - 1 ? "" : " ");
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams[count++] = (long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2);
+            }
+        }
+        return Arrays.stream(trigrams, 0, count).sorted().distinct().toArray();
+    }
+
+    private record Match(RestaurantSummary restaurant, double coverage, double similarity) {
+    }
+
+    @FunctionalInterface
+    private interface DocumentConsumer {
+        void accept(int document, int shared);
+    }
+
+    /**
+     * Ascending documents containing one trigram. Documents are numbered in insertion order, so
+     * appending keeps the list sorted.
+     */
+    private static final class PostingList {
+        private int[] documents = new int[4];
+        private int size = 0;
+
+        void add(int document) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = document;
+        }
+    }
+
+    /**
+     * Position in one posting list while merging several; cursors order by their current document.
+     */
+    private static final class Cursor implements Comparable<Cursor> {
+        private final int[] documents;
+        private final int size;
+        private int position;
+
+        Cursor(int[] documents, int size) {
+            this.documents = documents;
+            this.size = size;
+        }
+
+        int current() {
+            return documents[position];
+        }
+
+        boolean advance() {
+            return ++position < size;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return Integer.compare(current(), other.current());
+        }
+    }
+}
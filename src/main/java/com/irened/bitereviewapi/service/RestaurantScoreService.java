@@ -0,0 +1,142 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import com.irened.bitereviewapi.model.ScoreRecomputeTask;
+import com.irened.bitereviewapi.repository.DiningReviewRepository;
+import com.irened.bitereviewapi.repository.RestaurantRepository;
+import com.irened.bitereviewapi.repository.ScoreRecomputeOutboxRepository;
+import com.irened.bitereviewapi.repository.ScoreTotals;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class RestaurantScoreService {
+
+    private final DiningReviewRepository diningReviewRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final ScoreRecomputeOutboxRepository outboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public RestaurantScoreService(DiningReviewRepository diningReviewRepository,
+                                  RestaurantRepository restaurantRepository,
+                                  ScoreRecomputeOutboxRepository outboxRepository,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.diningReviewRepository = diningReviewRepository;
+        this.restaurantRepository = restaurantRepository;
+        this.outboxRepository = outboxRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Add or remove the scores of queued review changes to their restaurants' running totals,
+     * and delete those outbox rows in the same transaction, so each change is applied exactly once.
+     *
+     * @param changes Outbox rows carrying a score delta.
+     * @return The number of restaurants that were updated.
+     * @throws OptimisticLockingFailureException If another transaction applied some of the changes
+     *                                           or updated one of the restaurants first.
+     */
+    @Transactional
+    public int applyChanges(Collection<ScoreRecomputeTask> changes) {
+        Map<Long, List<ScoreRecomputeTask>> changesByRestaurant = changes.stream()
+                .collect(Collectors.groupingBy(ScoreRecomputeTask::getRestaurantId));
+
+        List<Restaurant> restaurants = restaurantRepository.findAllById(changesByRestaurant.keySet());
+        for (Restaurant restaurant : restaurants) {
+            for (ScoreRecomputeTask change : changesByRestaurant.get(restaurant.getId())) {
+                ScoreAggregates.accumulate(restaurant, change.getPeanutScore(), change.getEggScore(),
+                        change.getDairyScore(), change.getScoreSign());
+            }
+            ScoreAggregates.refreshAverages(restaurant);
+            eventPublisher.publishEvent(new RestaurantUpdatedEvent(restaurant));
+        }
+        restaurantRepository.saveAll(restaurants);
+        deleteApplied(changes);
+        return restaurants.size();
+    }
+
+    /**
+     * Rebuild a single restaurant's score totals from its approved reviews.
+     * Its queued changes are already counted by the rebuild and are discarded.
+     *
+     * @param restaurantId ID of the restaurant.
+     * @return The updated restaurant, or empty if it does not exist.
+     */
+    @Transactional(isolation = Isolation.SERIALIZABLE)
+    public Optional<Restaurant> rebuildAggregates(Long restaurantId) {
+        List<ScoreRecomputeTask> pending = outboxRepository.findByRestaurantIdIn(List.of(restaurantId));
+        Optional<Restaurant> optionalRestaurant = restaurantRepository.findById(restaurantId);
+        optionalRestaurant.ifPresent(restaurant -> {
+            Optional<ScoreTotals> totals =
+                    diningReviewRepository.sumScoresByRestaurantIdAndStatus(restaurantId, ReviewStatus.APPROVED);
+            applyTotals(restaurant, totals.orElse(null));
+            restaurantRepository.save(restaurant);
+            eventPublisher.publishEvent(new RestaurantUpdatedEvent(restaurant));
+        });
+        deleteApplied(pending);
+        return optionalRestaurant;
+    }
+
+    /**
+     * Rebuild the score totals of every restaurant from the approved reviews.
+     * Restaurants without approved reviews are reset to having no scores, and every queued change is discarded.
+     *
+     * @return The number of restaurants that were reconciled.
+     */
+    @Transactional(isolation = Isolation.SERIALIZABLE)
+    public int rebuildAllAggregates() {
+        List<ScoreRecomputeTask> pending = outboxRepository.findAll();
+        Map<Long, ScoreTotals> totalsByRestaurant = diningReviewRepository
+                .sumScoresByStatusGroupByRestaurant(ReviewStatus.APPROVED).stream()
+                .collect(Collectors.toMap(ScoreTotals::getRestaurantId, Function.identity()));
+
+        int count = 0;
+        for (Restaurant restaurant : restaurantRepository.findAll()) {
+            applyTotals(restaurant, totalsByRestaurant.get(restaurant.getId()));
+            restaurantRepository.save(restaurant);
+            eventPublisher.publishEvent(new RestaurantUpdatedEvent(restaurant));
+            count++;
+        }
+        deleteApplied(pending);
+        return count;
+    }
+
+    /**
+     * Delete the outbox rows whose changes this transaction accounted for. The rebuilds run serializable,
+     * so the approved reviews they sum and the rows they discard come from the same snapshot.
+     * If some rows are already gone, another transaction counted them too, and this one must roll back.
+     */
+    private void deleteApplied(Collection<ScoreRecomputeTask> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<Long> ids = rows.stream().map(ScoreRecomputeTask::getId).toList();
+        if (outboxRepository.deleteByIds(ids) != ids.size()) {
+            throw new OptimisticLockingFailureException("Queued score changes were applied concurrently");
+        }
+    }
+
+    /**
+     * Replace the restaurant's totals with the given ones and recompute its averages.
+     */
+    private void applyTotals(Restaurant restaurant, ScoreTotals totals) {
+        restaurant.setPeanutScoreSum(totals == null ? 0 : totals.getPeanutScoreSum());
+        restaurant.setPeanutScoreCount(totals == null ? 0 : totals.getPeanutScoreCount());
+        restaurant.setEggScoreSum(totals == null ? 0 : totals.getEggScoreSum());
+        restaurant.setEggScoreCount(totals == null ? 0 : totals.getEggScoreCount());
+        restaurant.setDairyScoreSum(totals == null ? 0 : totals.getDairyScoreSum());
+        restaurant.setDairyScoreCount(totals == null ? 0 : totals.getDairyScoreCount());
+        ScoreAggregates.refreshAverages(restaurant);
+    }
+}
@@ -0,0 +1,294 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.model.AllergyRanking;
+import com.irened.bitereviewapi.model.RestaurantSummary;
+import com.irened.bitereviewapi.repository.RestaurantRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index answering restaurant searches by zip code and allergy without a database query.
+ * For each zip code it keeps immutable summaries of the restaurants and, per allergy ranking, a
+ * primitive array of restaurant IDs sorted by descending score. A zip code's rankings are immutable and
+ * replaced as a whole when one of its restaurants changes, so readers never need to lock. Writers
+ * take turns: a rebuild holds the lock from reading the restaurants until the new index is in
+ * place, so an update committed meanwhile is applied on top of it instead of being overwritten.
+ * Every replacement gets a new generation number, which clients can send back to check
+ * whether the results of a search changed.
+ */
+@Component
+public class RestaurantSearchIndex {
+
+    private final RestaurantRepository restaurantRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Lock updateLock = new ReentrantLock();
+    private volatile Map<String, ZipCodeRankings> rankingsByZipCode = new ConcurrentHashMap<>();
+    private final AtomicLong generations = new AtomicLong();
+    private final String runId = Long.toHexString(System.currentTimeMillis());  // Keeps generations of earlier runs apart
+    private volatile Instant loadedAt = Instant.EPOCH;
+    private volatile boolean ready = false;
+
+    public RestaurantSearchIndex(RestaurantRepository restaurantRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.restaurantRepository = restaurantRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Load every restaurant from the repository once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        updateLock.lock();
+        try {
+            Map<String, List<RestaurantSummary>> restaurantsByZipCode = new HashMap<>();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<RestaurantSummary> restaurants = restaurantRepository.streamAllByOrderByIdAsc()) {
+                    restaurants.filter(restaurant -> restaurant.zipCode() != null)
+                            .forEach(restaurant -> restaurantsByZipCode
+                                    .computeIfAbsent(restaurant.zipCode(), zip -> new ArrayList<>())
+                                    .add(restaurant));
+                }
+            });
+
+            Map<String, ZipCodeRankings> rebuilt = new ConcurrentHashMap<>();
+            restaurantsByZipCode.forEach((zipCode, restaurants) ->
+                    rebuilt.put(zipCode, new ZipCodeRankings(restaurants, generations.incrementAndGet())));
+            rankingsByZipCode = rebuilt;
+            loadedAt = Instant.now();
+            ready = true;
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    /**
+     * Whether the index has been loaded and can serve searches.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Add or replace a restaurant in the index once the change that triggered the event commits.
+     *
+     * @param event The restaurant update.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantUpdated(RestaurantUpdatedEvent event) {
+        updateLock.lock();
+        try {
+            update(RestaurantSummary.from(event.restaurant()));
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    /**
+     * Find the restaurants in a zip code that are part of the ranking, highest score first.
+     *
+     * @param zipCode The zip code to search.
+     * @param ranking The ranking to rank by.
+     * @param offset  Number of top-ranked restaurants to skip.
+     * @param limit   Maximum number of restaurants to return, or null for all.
+     * @return The ranked restaurants.
+     */
+    public List<RestaurantSummary> search(String zipCode, AllergyRanking ranking, int offset, Integer limit) {
+        ZipCodeRankings rankings = rankingsByZipCode.get(zipCode);
+        if (rankings == null) {
+            return List.of();
+        }
+        return rankings.slice(ranking, offset, limit == null ? Integer.MAX_VALUE : limit);
+    }
+
+    /**
+     * Find the restaurants in several zip codes that are part of the ranking, highest score first
+     * and ties nearest first. Each zip code's ranking is already sorted, so they are merged lazily
+     * and only as many restaurants as the page needs are visited.
+     *
+     * @param distanceByZipCode Distance of each zip code to search from the search center.
+     * @param ranking           The ranking to rank by.
+     * @param offset            Number of top-ranked restaurants to skip.
+     * @param limit             Maximum number of restaurants to return, or null for all.
+     * @return The ranked restaurants.
+     */
+    public List<RestaurantSummary> searchNearby(Map<String, Double> distanceByZipCode, AllergyRanking ranking,
+                                                int offset, Integer limit) {
+        Map<String, ZipCodeRankings> rankingsByZipCode = this.rankingsByZipCode;
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>();
+        distanceByZipCode.forEach((zipCode, distance) -> {
+            ZipCodeRankings rankings = rankingsByZipCode.get(zipCode);
+            if (rankings != null && rankings.rankedIds[ranking.mask()].length > 0) {
+                cursors.add(new Cursor(rankings, ranking.mask(), distance));
+            }
+        });
+
+        long end = limit == null ? Long.MAX_VALUE : (long) Math.max(offset, 0) + limit;
+        List<RestaurantSummary> result = new ArrayList<>();
+        for (long position = 0; position < end && !cursors.isEmpty(); position++) {
+            Cursor cursor = cursors.poll();
+            if (position >= offset) {
+                result.add(cursor.current());
+            }
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Current generation of a zip code's rankings. It changes whenever a restaurant in the zip code
+     * is added or updated, so a search whose generation is unchanged returns the same results.
+     * Read it before searching: results newer than their generation are only ever refreshed
+     * once more, never reported unchanged while stale.
+     *
+     * @param zipCode The zip code to search.
+     * @return The generation, with the time it was built.
+     */
+    public Generation generation(String zipCode) {
+        ZipCodeRankings rankings = rankingsByZipCode.get(zipCode);
+        if (rankings == null) {
+            return new Generation(runId + "-0", loadedAt);
+        }
+        return new Generation(runId + "-" + rankings.generation, rankings.builtAt);
+    }
+
+    /**
+     * Current generation of the combined rankings of several zip codes: the newest of their
+     * generations, which changes whenever any of them does.
+     *
+     * @param zipCodes The zip codes to search.
+     * @return The generation, with the time the newest of the rankings was built.
+     */
+    public Generation generation(Collection<String> zipCodes) {
+        Map<String, ZipCodeRankings> rankingsByZipCode = this.rankingsByZipCode;
+        long generation = 0;
+        Instant lastModified = loadedAt;
+        for (String zipCode : zipCodes) {
+            ZipCodeRankings rankings = rankingsByZipCode.get(zipCode);
+            if (rankings != null) {
+                generation = Math.max(generation, rankings.generation);
+                lastModified = rankings.builtAt.isAfter(lastModified) ? rankings.builtAt : lastModified;
+            }
+        }
+        return new Generation(runId + "-" + generation, lastModified);
+    }
+
+    /**
+     * Version of a zip code's search results.
+     *
+     * @param tag          Opaque value, unique per zip code and generation, usable as an ETag.
+     * @param lastModified When the rankings were built.
+     */
+    public record Generation(String tag, Instant lastModified) {
+    }
+
+    // Callers hold the update lock
+    private void update(RestaurantSummary restaurant) {
+        if (restaurant.zipCode() == null) {
+            return;
+        }
+        rankingsByZipCode.compute(restaurant.zipCode(), (zipCode, current) -> {
+            List<RestaurantSummary> restaurants = new ArrayList<>();
+            if (current != null) {
+                current.restaurantsById.values().stream()
+                        .filter(existing -> !existing.id().equals(restaurant.id()))
+                        .forEach(restaurants::add);
+            }
+            restaurants.add(restaurant);
+            return new ZipCodeRankings(restaurants, generations.incrementAndGet());
+        });
+    }
+
+    /**
+     * Immutable rankings for a single zip code.
+     */
+    private static final class ZipCodeRankings {
+        private final Map<Long, RestaurantSummary> restaurantsById = new HashMap<>();
+        private final long[][] rankedIds = new long[AllergyRanking.ALL.size()][];  // Indexed by ranking mask
+        private final double[][] rankedScores = new double[AllergyRanking.ALL.size()][];  // Score of each ranked ID
+        private final long generation;
+        private final Instant builtAt = Instant.now();
+
+        ZipCodeRankings(List<RestaurantSummary> restaurants, long generation) {
+            this.generation = generation;
+            for (RestaurantSummary restaurant : restaurants) {
+                restaurantsById.put(restaurant.id(), restaurant);
+            }
+
+            for (AllergyRanking ranking : AllergyRanking.ALL) {
+                List<RestaurantSummary> ranked = ranking.rank(restaurants);
+                rankedIds[ranking.mask()] = ranked.stream().mapToLong(RestaurantSummary::id).toArray();
+                rankedScores[ranking.mask()] = ranked.stream().mapToDouble(ranking::scoreOf).toArray();
+            }
+        }
+
+        List<RestaurantSummary> slice(AllergyRanking ranking, int offset, int limit) {
+            long[] ids = rankedIds[ranking.mask()];
+            int from = Math.min(ids.length, Math.max(offset, 0));
+            int to = (int) Math.min(ids.length, (long) from + Math.max(limit, 0));
+            List<RestaurantSummary> result = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                result.add(restaurantsById.get(ids[i]));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Position in one zip code's ranking while merging several. Cursors order by the score at their
+     * position, highest first, then by distance and restaurant ID, matching
+     * {@link AllergyRanking#rank(Collection, Map)}.
+     */
+    private static final class Cursor implements Comparable<Cursor> {
+        private final ZipCodeRankings rankings;
+        private final long[] ids;
+        private final double[] scores;
+        private final double distance;
+        private int position;
+
+        Cursor(ZipCodeRankings rankings, int mask, double distance) {
+            this.rankings = rankings;
+            this.ids = rankings.rankedIds[mask];
+            this.scores = rankings.rankedScores[mask];
+            this.distance = distance;
+        }
+
+        RestaurantSummary current() {
+            return rankings.restaurantsById.get(ids[position]);
+        }
+
+        boolean advance() {
+            return ++position < ids.length;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int byScore = Double.compare(other.scores[other.position], scores[position]);
+            if (byScore != 0) {
+                return byScore;
+            }
+            int byDistance = Double.compare(distance, other.distance);
+            return byDistance != 0 ? byDistance : Long.compare(ids[position], other.ids[other.position]);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.model.Restaurant;
+
+/**
+ * Published whenever a restaurant is added or its scores change.
+ * Listeners that keep derived state (search index, caches) should handle it after commit.
+ *
+ * @param restaurant The restaurant as it was saved.
+ */
+public record RestaurantUpdatedEvent(Restaurant restaurant) {
+}
@@ -0,0 +1,399 @@
+package com.irened.bitereviewapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.irened.bitereviewapi.config.ReviewDedupProperties;
+import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.DiningReviewSummary;
+import com.irened.bitereviewapi.repository.DiningReviewRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Refuses review submissions that repeat an earlier review. A review is an exact duplicate when
+ * the same user already reviewed the same restaurant with the same normalized commentary (case,
+ * accents and punctuation ignored). Each such key is hashed into an in-memory Bloom filter, so a
+ * new review whose key is not in the filter is known to be unique without a query; only when the
+ * filter reports a match are the user's reviews of the restaurant loaded, through the
+ * (display_name, restaurant_id) index, to confirm it. The filter is rebuilt from the table at
+ * startup in one streaming pass; until then every submission is confirmed against the database.
+ * <p>
+ * A review is a near-duplicate when its commentary has a SimHash fingerprint within a few bits
+ * of one of the same user's recent commentaries for any restaurant, which catches the same text
+ * posted with small edits or to many restaurants. Fingerprints are kept in memory only.
+ * <p>
+ * Reviews are only added to the filter and fingerprints once they are committed. Reviews accepted
+ * but not committed yet, waiting in the submission buffer or earlier in the same import, are
+ * compared with the new one directly. A review without commentary is never a duplicate: scores
+ * alone repeat between honest reviews.
+ * <p>
+ * Checks are not atomic with the submission: two identical reviews submitted at the same moment
+ * may both be accepted.
+ */
+@Service
+public class ReviewDuplicateDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewDuplicateDetector.class);
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Outcome of checking one review.
+     */
+    private enum Result {
+        UNIQUE, FALSE_POSITIVE, DUPLICATE, NEAR_DUPLICATE
+    }
+
+    private final DiningReviewRepository diningReviewRepository;
+    private final ReviewSubmissionQueue reviewSubmissionQueue;
+    private final ReviewDedupProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<String, RecentFingerprints> fingerprintsByUser;
+    private final Map<Result, Counter> results = new EnumMap<>(Result.class);
+    private volatile BloomFilter filter;  // Null until the first rebuild completes
+    private BloomFilter building;  // Filter being rebuilt, also given new keys; guarded by this
+
+    public ReviewDuplicateDetector(DiningReviewRepository diningReviewRepository,
+                                   ReviewSubmissionQueue reviewSubmissionQueue,
+                                   ReviewDedupProperties properties,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.diningReviewRepository = diningReviewRepository;
+        this.reviewSubmissionQueue = reviewSubmissionQueue;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fingerprintsByUser = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxTrackedUsers())
+                .build();
+
+        for (Result result : Result.values()) {
+            results.put(result, Counter.builder("bitereview.reviews.dedup.checks")
+                    .description("Review submissions checked for duplicates, by outcome")
+                    .tag("result", result.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("bitereview.reviews.dedup.filter.fpp", this,
+                        detector -> detector.filter == null ? Double.NaN : detector.filter.expectedFalsePositiveRate())
+                .description("Expected false-positive rate of the duplicate review filter at its current fill")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Load every review's key into a new filter, sized for at least twice the current table,
+     * and the recent fingerprints of each user, once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        long expected = Math.max(properties.getExpectedReviews(), 2 * diningReviewRepository.count());
+        BloomFilter next = new BloomFilter(expected, properties.getFalsePositiveRate());
+        synchronized (this) {
+            building = next;
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<DiningReviewSummary> all = diningReviewRepository.streamAllByOrderByIdAsc()) {
+                    all.forEach(review -> {
+                        String commentary = RestaurantNameIndex.normalize(review.commentary());
+                        if (!commentary.isEmpty()) {
+                            next.put(key(review.displayName(), review.restaurantId(), commentary));
+                            rememberFingerprint(review.displayName(), commentary);
+                        }
+                    });
+                }
+            });
+            synchronized (this) {
+                filter = next;
+            }
+        } finally {
+            synchronized (this) {
+                building = null;
+            }
+        }
+        log.info("Duplicate review filter loaded {} reviews in {} ms: {} bits, {} hash functions, "
+                        + "expected false-positive rate {}",
+                next.insertions(), (System.nanoTime() - started) / 1_000_000, next.bitSize(),
+                next.hashFunctions(), String.format(Locale.ROOT, "%.3g", next.expectedFalsePositiveRate()));
+    }
+
+    /**
+     * Check a validated review against the user's earlier reviews.
+     *
+     * @param review The review to check.
+     * @return Why the review was refused, or empty if it is not a duplicate.
+     */
+    public Optional<String> check(DiningReview review) {
+        return check(review, List.of());
+    }
+
+    /**
+     * Check a validated review against the user's earlier reviews, including ones accepted but
+     * not committed yet.
+     *
+     * @param review  The review to check.
+     * @param unsaved Reviews accepted with this one and not saved yet, such as earlier reviews of the same import.
+     * @return Why the review was refused, or empty if it is not a duplicate.
+     */
+    public Optional<String> check(DiningReview review, Collection<DiningReview> unsaved) {
+        String commentary = RestaurantNameIndex.normalize(review.getCommentary());
+        if (commentary.isEmpty()) {
+            return Optional.empty();
+        }
+        Predicate<DiningReview> sameUser = other -> Objects.equals(other.getDisplayName(), review.getDisplayName());
+
+        Predicate<DiningReview> sameReview = sameUser.and(other ->
+                Objects.equals(other.getRestaurantId(), review.getRestaurantId())
+                        && RestaurantNameIndex.normalize(other.getCommentary()).equals(commentary));
+        if (isUnsaved(sameReview, unsaved)) {
+            results.get(Result.DUPLICATE).increment();
+            return Optional.of("Duplicate review.");
+        }
+        long key = key(review.getDisplayName(), review.getRestaurantId(), commentary);
+        BloomFilter current = filter;
+        if (current == null || current.mightContain(key)) {
+            if (isStored(review.getDisplayName(), review.getRestaurantId(), commentary)) {
+                results.get(Result.DUPLICATE).increment();
+                return Optional.of("Duplicate review.");
+            }
+            if (current != null) {
+                results.get(Result.FALSE_POSITIVE).increment();
+            }
+        } else {
+            results.get(Result.UNIQUE).increment();
+        }
+
+        long fingerprint = simHash(commentary);
+        if (fingerprint == 0) {
+            return Optional.empty();
+        }
+        RecentFingerprints recent = fingerprintsByUser.getIfPresent(review.getDisplayName());
+        Predicate<DiningReview> similar = sameUser.and(other ->
+                isNear(fingerprint, simHash(RestaurantNameIndex.normalize(other.getCommentary()))));
+        if (recent != null && recent.anyWithin(fingerprint, properties.getNearDuplicateMaxDistance())
+                || isUnsaved(similar, unsaved)) {
+            results.get(Result.NEAR_DUPLICATE).increment();
+            return Optional.of("Review is too similar to one already submitted by this user.");
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Remember newly saved reviews, once they are committed, so that later copies of them are refused.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewsSaved(ReviewsSavedEvent event) {
+        event.reviews().forEach(this::record);
+    }
+
+    /**
+     * Whether the filter has been loaded; before that every check queries the database.
+     */
+    public boolean isReady() {
+        return filter != null;
+    }
+
+    /**
+     * Reviews added to the filter, or 0 before it is loaded.
+     */
+    public long filterInsertions() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.insertions();
+    }
+
+    /**
+     * Size of the filter in bits, or 0 before it is loaded.
+     */
+    public long filterBits() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.bitSize();
+    }
+
+    /**
+     * Bits set per key, or 0 before the filter is loaded.
+     */
+    public int filterHashFunctions() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.hashFunctions();
+    }
+
+    /**
+     * False-positive rate expected from the filter's current fill, or 0 before it is loaded.
+     */
+    public double expectedFalsePositiveRate() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.expectedFalsePositiveRate();
+    }
+
+    /**
+     * Share of submissions that were not duplicates but matched the filter and needed a query.
+     */
+    public double observedFalsePositiveRate() {
+        double falsePositives = results.get(Result.FALSE_POSITIVE).count();
+        double negatives = falsePositives + results.get(Result.UNIQUE).count();
+        return negatives == 0 ? 0 : falsePositives / negatives;
+    }
+
+    /**
+     * Number of checks with each outcome, keyed by lower-case outcome name.
+     */
+    public Map<String, Long> checkCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        results.forEach((result, counter) ->
+                counts.put(result.name().toLowerCase(Locale.ROOT), (long) counter.count()));
+        return counts;
+    }
+
+    private void record(DiningReview review) {
+        String commentary = RestaurantNameIndex.normalize(review.getCommentary());
+        if (commentary.isEmpty()) {
+            return;
+        }
+        long key = key(review.getDisplayName(), review.getRestaurantId(), commentary);
+        synchronized (this) {
+            if (filter != null) {
+                filter.put(key);
+            }
+            if (building != null) {
+                building.put(key);
+            }
+        }
+        rememberFingerprint(review.getDisplayName(), commentary);
+    }
+
+    // Whether a review matching the condition is accepted and not committed: unsaved, or waiting in the submission buffer
+    private boolean isUnsaved(Predicate<DiningReview> condition, Collection<DiningReview> unsaved) {
+        for (DiningReview review : unsaved) {
+            if (condition.test(review)) {
+                return true;
+            }
+        }
+        return reviewSubmissionQueue.anyBuffered(condition);
+    }
+
+    // Whether the review is already stored
+    private boolean isStored(String displayName, Long restaurantId, String commentary) {
+        return diningReviewRepository.findCommentariesByDisplayNameAndRestaurantId(displayName, restaurantId)
+                .stream()
+                .anyMatch(stored -> RestaurantNameIndex.normalize(stored).equals(commentary));
+    }
+
+    // Whether two fingerprints are close enough for near-duplicates; 0 stands for a commentary too short to compare
+    private boolean isNear(long fingerprint, long other) {
+        return other != 0 && Long.bitCount(fingerprint ^ other) <= properties.getNearDuplicateMaxDistance();
+    }
+
+    private void rememberFingerprint(String displayName, String commentary) {
+        long fingerprint = simHash(commentary);
+        if (fingerprint != 0 && displayName != null) {
+            fingerprintsByUser.get(displayName, name -> new RecentFingerprints(properties.getRecentFingerprintsPerUser()))
+                    .add(fingerprint);
+        }
+    }
+
+    /**
+     * SimHash of a normalized commentary over its words and pairs of adjacent words: each bit is
+     * set when more of the features' hashes have it set than not. Similar texts share most
+     * features and so get fingerprints differing in few bits.
+     *
+     * @return The fingerprint, or 0 when the commentary is too short to compare.
+     */
+    long simHash(String commentary) {
+        String[] words = commentary.isEmpty() ? new String[0] : commentary.split(" ");
+        if (words.length < properties.getNearDuplicateMinWords()) {
+            return 0;
+        }
+        int[] votes = new int[64];
+        for (int i = 0; i < words.length; i++) {
+            vote(votes, mix(hash(FNV_OFFSET, words[i])));
+            if (i > 0) {
+                vote(votes, mix(hash(hash(hash(FNV_OFFSET, words[i - 1]), " "), words[i])));
+            }
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (votes[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    private static void vote(int[] votes, long featureHash) {
+        for (int bit = 0; bit < 64; bit++) {
+            votes[bit] += (featureHash >>> bit & 1) == 1 ? 1 : -1;
+        }
+    }
+
+    private static long key(String displayName, Long restaurantId, String commentary) {
+        long hash = hash(FNV_OFFSET, Objects.toString(displayName, ""));
+        hash = hash(hash, "\0" + restaurantId + "\0");
+        return mix(hash(hash, commentary));
+    }
+
+    // FNV-1a over the string's characters, continuing from a previous hash
+    private static long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    // Finalizer spreading every input bit over the whole hash, so both halves can index the filter
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * The last few commentary fingerprints of one user, oldest overwritten first.
+     */
+    private static final class RecentFingerprints {
+        private final long[] fingerprints;
+        private int size;
+        private int next;
+
+        RecentFingerprints(int capacity) {
+            this.fingerprints = new long[Math.max(1, capacity)];
+        }
+
+        synchronized void add(long fingerprint) {
+            fingerprints[next] = fingerprint;
+            next = (next + 1) % fingerprints.length;
+            size = Math.min(size + 1, fingerprints.length);
+        }
+
+        synchronized boolean anyWithin(long fingerprint, int maxDistance) {
+            for (int i = 0; i < size; i++) {
+                if (Long.bitCount(fingerprints[i] ^ fingerprint) <= maxDistance) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
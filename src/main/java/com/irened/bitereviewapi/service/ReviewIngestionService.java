@@ -0,0 +1,196 @@
+package com.irened.bitereviewapi.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import com.irened.bitereviewapi.model.ReviewSubmissionResult;
+import com.irened.bitereviewapi.repository.DiningReviewRepository;
+import com.irened.bitereviewapi.repository.RestaurantRepository;
+import com.irened.bitereviewapi.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ObjectUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports dining reviews in bulk. Reviews are read one at a time from a JSON array or a
+ * newline-delimited JSON stream and processed in chunks: each chunk validates its users and
+ * restaurants with one set-based query each and inserts the accepted reviews as JDBC batches
+ * in its own transaction. Duplicates of stored reviews, or of earlier reviews in the same import,
+ * are rejected like single submissions. The duplicate detector learns a chunk's reviews once its
+ * transaction commits.
+ */
+@Service
+public class ReviewIngestionService {
+
+    private static final int CHUNK_SIZE = 1000;  // Reviews validated and inserted per transaction
+
+    private final DiningReviewRepository diningReviewRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final ReviewDuplicateDetector reviewDuplicateDetector;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader reviewReader;
+
+    public ReviewIngestionService(DiningReviewRepository diningReviewRepository,
+                                  RestaurantRepository restaurantRepository,
+                                  UserRepository userRepository,
+                                  EntityManager entityManager,
+                                  ReviewDuplicateDetector reviewDuplicateDetector,
+                                  ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper) {
+        this.diningReviewRepository = diningReviewRepository;
+        this.restaurantRepository = restaurantRepository;
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.reviewDuplicateDetector = reviewDuplicateDetector;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reviewReader = objectMapper.readerFor(DiningReview.class);
+    }
+
+    /**
+     * Read and import all reviews from the request body.
+     * Malformed JSON stops the import; reviews from earlier chunks stay saved and the
+     * failing position is reported as rejected.
+     *
+     * @param body JSON array of reviews, or one review per line.
+     * @return One result per review read, in input order.
+     */
+    public List<ReviewSubmissionResult> ingest(InputStream body) throws IOException {
+        List<ReviewSubmissionResult> results = new ArrayList<>();
+        List<DiningReview> chunk = new ArrayList<>(CHUNK_SIZE);
+        int index = 0;
+        boolean malformed = false;
+
+        try (MappingIterator<DiningReview> reviews = reviewReader.readValues(body)) {
+            while (true) {
+                try {
+                    if (!reviews.hasNextValue()) {
+                        break;
+                    }
+                    chunk.add(reviews.nextValue());
+                } catch (IOException | RuntimeJsonMappingException ex) {
+                    malformed = true;
+                    break;
+                }
+
+                if (chunk.size() == CHUNK_SIZE) {
+                    results.addAll(ingestChunk(chunk, index));
+                    index += chunk.size();
+                    chunk.clear();
+                }
+            }
+        }
+
+        results.addAll(ingestChunk(chunk, index));
+        if (malformed) {
+            results.add(ReviewSubmissionResult.rejected(index + chunk.size(), "Malformed review JSON."));
+        }
+        return results;
+    }
+
+    /**
+     * Validate and insert one chunk of reviews in a single transaction.
+     *
+     * @param chunk       The reviews to import.
+     * @param firstIndex  Position of the first review of the chunk in the whole import.
+     * @return One result per review of the chunk.
+     */
+    private List<ReviewSubmissionResult> ingestChunk(List<DiningReview> chunk, int firstIndex) {
+        if (chunk.isEmpty()) {
+            return List.of();
+        }
+
+        return transactionTemplate.execute(status -> {
+            Set<String> displayNames = chunk.stream()
+                    .map(DiningReview::getDisplayName)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            Set<Long> restaurantIds = chunk.stream()
+                    .map(DiningReview::getRestaurantId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            Set<String> existingUsers = displayNames.isEmpty()
+                    ? Set.of() : userRepository.findExistingDisplayNames(displayNames);
+            Set<Long> existingRestaurants = restaurantIds.isEmpty()
+                    ? Set.of() : restaurantRepository.findExistingIds(restaurantIds);
+
+            List<ReviewSubmissionResult> results = new ArrayList<>(chunk.size());
+            List<DiningReview> accepted = new ArrayList<>(chunk.size());
+            List<Integer> acceptedIndexes = new ArrayList<>(chunk.size());
+
+            for (int i = 0; i < chunk.size(); i++) {
+                DiningReview review = chunk.get(i);
+                String error = validate(review, existingUsers, existingRestaurants);
+                if (error == null) {
+                    // Accepted reviews of the chunk are not stored yet, so the detector is given them to compare
+                    error = reviewDuplicateDetector.check(review, accepted).orElse(null);
+                }
+                if (error != null) {
+                    results.add(ReviewSubmissionResult.rejected(firstIndex + i, error));
+                    continue;
+                }
+
+                review.setId(null);
+                review.setStatus(ReviewStatus.PENDING);
+                accepted.add(review);
+                acceptedIndexes.add(results.size());
+                results.add(null);  // Filled in once the review has its ID
+            }
+
+            diningReviewRepository.saveAll(accepted);
+            eventPublisher.publishEvent(new ReviewsSavedEvent(List.copyOf(accepted)));
+            entityManager.flush();
+            entityManager.clear();
+
+            for (int i = 0; i < accepted.size(); i++) {
+                int position = acceptedIndexes.get(i);
+                results.set(position, ReviewSubmissionResult.accepted(firstIndex + position, accepted.get(i).getId()));
+            }
+            return results;
+        });
+    }
+
+    /**
+     * Check a review against the same rules as a single submission.
+     *
+     * @return The rejection reason, or null if the review is valid.
+     */
+    private String validate(DiningReview review, Set<String> existingUsers, Set<Long> existingRestaurants) {
+        if (review == null) {
+            return "Review cannot be empty.";
+        }
+        if (ObjectUtils.isEmpty(review.getDisplayName()) || ObjectUtils.isEmpty(review.getRestaurantId())) {
+            return "Submitted by and restaurant ID are required.";
+        }
+        if (ObjectUtils.isEmpty(review.getPeanutScore()) &&
+                ObjectUtils.isEmpty(review.getDairyScore()) &&
+                ObjectUtils.isEmpty(review.getEggScore())) {
+            return "At least one score must be provided.";
+        }
+        if (!existingUsers.contains(review.getDisplayName())) {
+            return "User not found.";
+        }
+        if (!existingRestaurants.contains(review.getRestaurantId())) {
+            return "Restaurant not found.";
+        }
+        return null;
+    }
+}
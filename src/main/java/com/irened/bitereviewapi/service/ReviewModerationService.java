@@ -0,0 +1,151 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.model.AdminReviewDecision;
+import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.ReviewModerationResult;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import com.irened.bitereviewapi.model.ScoreRecomputeTask;
+import com.irened.bitereviewapi.repository.DiningReviewRepository;
+import com.irened.bitereviewapi.repository.UserRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class ReviewModerationService {
+
+    private final DiningReviewRepository diningReviewRepository;
+    private final UserRepository userRepository;
+    private final ScoreRecomputeQueue scoreRecomputeQueue;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReviewModerationService(DiningReviewRepository diningReviewRepository,
+                                   UserRepository userRepository,
+                                   ScoreRecomputeQueue scoreRecomputeQueue,
+                                   PlatformTransactionManager transactionManager) {
+        this.diningReviewRepository = diningReviewRepository;
+        this.userRepository = userRepository;
+        this.scoreRecomputeQueue = scoreRecomputeQueue;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Set a review's status and, when it enters or leaves the approved state, queue its
+     * scores to be added to or removed from its restaurant in the same transaction.
+     * The review is re-read on each attempt, and the update is retried if a concurrent
+     * change to the same review commits first.
+     *
+     * @param reviewId ID of the review to update.
+     * @param status   The new status.
+     * @throws OptimisticLockingFailureException If every attempt lost to a concurrent change.
+     */
+    public void changeStatus(Long reviewId, ReviewStatus status) {
+        OptimisticLockRetry.run(OptimisticLockRetry.DEFAULT_ATTEMPTS, () -> transactionTemplate.execute(tx -> {
+            DiningReview review = diningReviewRepository.findById(reviewId).orElseThrow();
+            ScoreRecomputeTask change = scoreChange(review, status);
+            review.setStatus(status);
+            diningReviewRepository.save(review);
+            diningReviewRepository.flush();  // Lose to a concurrent change on the version check, before queueing the scores
+
+            if (change != null) {
+                scoreRecomputeQueue.markChanged(List.of(change));
+            }
+            return review;
+        }));
+    }
+
+    /**
+     * Apply a batch of approve/reject decisions in a single transaction.
+     * Reviews and their users are looked up with one query each, status updates are
+     * flushed as a JDBC batch, and the score changes of the affected reviews are queued together.
+     * Decisions that cannot be applied are reported and do not stop the rest of the batch.
+     * If a concurrent change to one of the reviews commits first, the whole batch is re-read and retried.
+     *
+     * @param decisions The admin decisions, one per review ID.
+     * @return One result per decision, in request order.
+     * @throws OptimisticLockingFailureException If every attempt lost to a concurrent change.
+     */
+    public List<ReviewModerationResult> moderate(List<AdminReviewDecision> decisions) {
+        return OptimisticLockRetry.run(OptimisticLockRetry.DEFAULT_ATTEMPTS,
+                () -> transactionTemplate.execute(tx -> moderateOnce(decisions)));
+    }
+
+    private List<ReviewModerationResult> moderateOnce(List<AdminReviewDecision> decisions) {
+        Set<Long> reviewIds = decisions.stream()
+                .map(AdminReviewDecision::getReviewId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Long, DiningReview> reviewsById = new HashMap<>();
+        diningReviewRepository.findAllById(reviewIds).forEach(review -> reviewsById.put(review.getId(), review));
+
+        Set<String> displayNames = reviewsById.values().stream()
+                .map(DiningReview::getDisplayName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> existingUsers = displayNames.isEmpty()
+                ? Set.of()
+                : userRepository.findExistingDisplayNames(displayNames);
+
+        List<ReviewModerationResult> results = new ArrayList<>(decisions.size());
+        List<DiningReview> updatedReviews = new ArrayList<>();
+        List<ScoreRecomputeTask> scoreChanges = new ArrayList<>();
+        Set<Long> seenIds = new HashSet<>();
+
+        for (AdminReviewDecision decision : decisions) {
+            Long reviewId = decision.getReviewId();
+            if (reviewId == null || decision.getAccepted() == null) {
+                results.add(ReviewModerationResult.failed(reviewId, "Review ID and accepted are required"));
+                continue;
+            }
+            if (!seenIds.add(reviewId)) {
+                results.add(ReviewModerationResult.failed(reviewId, "Duplicate review ID in batch"));
+                continue;
+            }
+
+            DiningReview review = reviewsById.get(reviewId);
+            if (review == null) {
+                results.add(ReviewModerationResult.failed(reviewId, "Review not found"));
+                continue;
+            }
+            if (!existingUsers.contains(review.getDisplayName())) {
+                results.add(ReviewModerationResult.failed(reviewId, "User not found for the review"));
+                continue;
+            }
+
+            ReviewStatus status = decision.getAccepted() ? ReviewStatus.APPROVED : ReviewStatus.REJECTED;
+            ScoreRecomputeTask change = scoreChange(review, status);
+            if (change != null) {
+                scoreChanges.add(change);
+            }
+            review.setStatus(status);
+            updatedReviews.add(review);
+            results.add(ReviewModerationResult.updated(reviewId, status));
+        }
+
+        diningReviewRepository.saveAll(updatedReviews);
+        diningReviewRepository.flush();  // Lose to a concurrent change on the version check, before queueing the scores
+        scoreRecomputeQueue.markChanged(scoreChanges);
+        return results;
+    }
+
+    // The score change of moving a review to the new status, or null if it stays in or out of the approved state
+    private static ScoreRecomputeTask scoreChange(DiningReview review, ReviewStatus status) {
+        boolean wasApproved = review.getStatus() == ReviewStatus.APPROVED;
+        boolean approved = status == ReviewStatus.APPROVED;
+        if (wasApproved == approved) {
+            return null;
+        }
+        return ScoreRecomputeTask.forReview(review, approved ? 1 : -1);
+    }
+}
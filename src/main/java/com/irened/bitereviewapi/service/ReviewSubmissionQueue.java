@@ -0,0 +1,327 @@
+package com.irened.bitereviewapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.irened.bitereviewapi.config.ReviewAdmissionProperties;
+import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import com.irened.bitereviewapi.repository.DiningReviewRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Admits single review submissions and writes them to the database in the background.
+ * Each submission first takes a token from its display name's bucket and then from a global one,
+ * so one busy client cannot use up the shared rate. Admitted reviews go into a bounded buffer,
+ * which a single writer drains into dining_reviews: whatever accumulated while the previous
+ * transaction ran is inserted together in the next one (up to the batch size), so the number of
+ * commits adapts to the load instead of growing with it. A submission is refused, never queued,
+ * when its rate is exceeded or the buffer is full; the caller learns how long to wait.
+ * Reviews that fail to be written for a reason that may pass, such as the database being
+ * unreachable, are held and written again after a growing backoff, while new submissions fill the
+ * buffer and are eventually refused. Only reviews that can never be written are dropped.
+ * Each insert publishes a {@link ReviewsSavedEvent}, which listeners see once it commits.
+ */
+@Service
+public class ReviewSubmissionQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewSubmissionQueue.class);
+    private static final long POLL_MILLIS = 100;  // How often an idle writer checks for shutdown
+
+    /**
+     * Why a submission was refused.
+     */
+    public enum RejectionReason {
+        USER_RATE, GLOBAL_RATE, BUFFER_FULL
+    }
+
+    /**
+     * A refused submission.
+     *
+     * @param reason     Why it was refused.
+     * @param retryAfter How long the client should wait before trying again.
+     */
+    public record Rejection(RejectionReason reason, Duration retryAfter) {
+    }
+
+    private final DiningReviewRepository diningReviewRepository;
+    private final ReviewAdmissionProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, TokenBucket> userBuckets;
+    private final TokenBucket globalBucket;
+    private final BlockingQueue<DiningReview> buffer;
+    private final ExecutorService writer =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("review-writer-"));
+    private final Map<RejectionReason, Counter> rejections = new EnumMap<>(RejectionReason.class);
+    private final Timer commitTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter failures;
+    private final Counter retries;
+    private volatile List<DiningReview> writing = List.of();  // Batch taken from the buffer or held, and not yet committed
+    private volatile boolean stopping = false;
+
+    public ReviewSubmissionQueue(DiningReviewRepository diningReviewRepository,
+                                 ReviewAdmissionProperties properties,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.diningReviewRepository = diningReviewRepository;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // An idle bucket is full again after burst / rate seconds, when forgetting it changes nothing
+        this.userBuckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxTrackedUsers())
+                .expireAfterAccess(Duration.ofNanos(
+                        (long) Math.ceil(properties.getPerUserBurst() / properties.getPerUserRate() * 1e9)))
+                .build();
+        this.globalBucket = new TokenBucket(properties.getGlobalRate(), properties.getGlobalBurst(), System.nanoTime());
+        this.buffer = new ArrayBlockingQueue<>(properties.getBufferCapacity());
+
+        Gauge.builder("bitereview.reviews.buffer.depth", buffer, BlockingQueue::size)
+                .description("Reviews accepted and waiting to be written")
+                .register(meterRegistry);
+        for (RejectionReason reason : RejectionReason.values()) {
+            rejections.put(reason, Counter.builder("bitereview.reviews.rejected")
+                    .description("Review submissions refused by admission control")
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        this.commitTimer = Timer.builder("bitereview.reviews.buffer.commit")
+                .description("Time to insert and commit one batch of buffered reviews")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("bitereview.reviews.buffer.batch")
+                .description("Reviews inserted per commit")
+                .register(meterRegistry);
+        this.failures = Counter.builder("bitereview.reviews.buffer.failed")
+                .description("Buffered reviews dropped because they can never be written")
+                .register(meterRegistry);
+        this.retries = Counter.builder("bitereview.reviews.buffer.retried")
+                .description("Buffered reviews held for another write after a transient failure")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start writing buffered reviews once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        writer.execute(this::writeLoop);
+    }
+
+    /**
+     * Stop accepting reviews and wait for the buffered ones to be written. A writer still
+     * retrying held reviews after the wait is interrupted, and those reviews are lost.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopping = true;
+        writer.shutdown();
+        if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("{} buffered reviews were not written before shutdown", buffer.size() + writing.size());
+            writer.shutdownNow();
+        }
+    }
+
+    /**
+     * Admit a validated review and buffer it as pending, or refuse it.
+     *
+     * @param review The review to submit.
+     * @return The reason the review was refused, or empty if it was accepted.
+     */
+    public Optional<Rejection> submit(DiningReview review) {
+        long now = System.nanoTime();
+        TokenBucket userBucket = userBuckets.get(review.getDisplayName(), name -> new TokenBucket(
+                properties.getPerUserRate(), properties.getPerUserBurst(), now));
+        long wait = userBucket.tryAcquire(now);
+        if (wait > 0) {
+            return reject(RejectionReason.USER_RATE, Duration.ofNanos(wait));
+        }
+        wait = globalBucket.tryAcquire(now);
+        if (wait > 0) {
+            userBucket.refund();
+            return reject(RejectionReason.GLOBAL_RATE, Duration.ofNanos(wait));
+        }
+
+        review.setId(null);
+        review.setStatus(ReviewStatus.PENDING);
+        if (stopping || !buffer.offer(review)) {
+            userBucket.refund();
+            globalBucket.refund();
+            return reject(RejectionReason.BUFFER_FULL, properties.getBufferFullRetryAfter());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Number of reviews accepted and not yet written.
+     */
+    public int depth() {
+        return buffer.size();
+    }
+
+    /**
+     * Whether any review accepted and not yet committed matches a condition. The buffer is
+     * searched before the batch being written, the order in which reviews move through them.
+     */
+    public boolean anyBuffered(Predicate<DiningReview> condition) {
+        for (DiningReview review : buffer) {
+            if (condition.test(review)) {
+                return true;
+            }
+        }
+        for (DiningReview review : writing) {
+            if (condition.test(review)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Optional<Rejection> reject(RejectionReason reason, Duration retryAfter) {
+        rejections.get(reason).increment();
+        return Optional.of(new Rejection(reason, retryAfter));
+    }
+
+    // Write whatever is buffered, one transaction at a time, until stopped and drained
+    private void writeLoop() {
+        List<DiningReview> batch = new ArrayList<>(properties.getBatchSize());
+        Duration backoff = Duration.ZERO;
+        while (true) {
+            try {
+                if (batch.isEmpty()) {
+                    DiningReview first = buffer.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        if (stopping) {
+                            return;
+                        }
+                        continue;
+                    }
+                    batch.add(first);
+                    buffer.drainTo(batch, properties.getBatchSize() - 1);
+                    writing = List.copyOf(batch);
+                } else {
+                    Thread.sleep(backoff.toMillis());
+                }
+
+                List<DiningReview> held = write(batch);
+                batch.clear();
+                if (held.isEmpty()) {
+                    writing = List.of();
+                    backoff = Duration.ZERO;
+                } else {
+                    batch.addAll(held);
+                    writing = List.copyOf(held);
+                    retries.increment(held.size());
+                    backoff = backoff.isZero() ? properties.getWriteRetryBackoff()
+                            : min(backoff.multipliedBy(2), properties.getMaxWriteRetryBackoff());
+                    log.warn("Holding {} buffered reviews, writing them again in {} ms", held.size(), backoff.toMillis());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Review writer failed", ex);
+                writing = List.of();
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Insert a batch in one transaction. If that fails for a reason that may pass, the whole batch
+     * is held. Otherwise its reviews are tried again one per transaction, so that a single bad
+     * review does not lose the others: a review that can never be written, such as one violating
+     * a constraint, is dropped, and one that fails for a reason that may pass is held.
+     *
+     * @return The reviews to write again after a backoff.
+     */
+    private List<DiningReview> write(List<DiningReview> batch) {
+        try {
+            insert(batch);
+            return List.of();
+        } catch (RuntimeException ex) {
+            if (isTransient(ex)) {
+                log.warn("Writing {} buffered reviews failed", batch.size(), ex);
+                return List.copyOf(batch);
+            }
+            log.warn("Writing {} buffered reviews failed, retrying one at a time", batch.size(), ex);
+        }
+
+        List<DiningReview> held = new ArrayList<>();
+        for (DiningReview review : batch) {
+            try {
+                insert(List.of(review));
+            } catch (RuntimeException ex) {
+                if (isTransient(ex)) {
+                    held.add(review);
+                } else {
+                    failures.increment();
+                    log.error("Dropping buffered review of {} for restaurant {}",
+                            review.getDisplayName(), review.getRestaurantId(), ex);
+                }
+            }
+        }
+        return held;
+    }
+
+    private void insert(List<DiningReview> reviews) {
+        for (DiningReview review : reviews) {
+            review.setId(null);  // Clear what a failed attempt assigned
+            review.setVersion(null);
+        }
+        commitTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            diningReviewRepository.saveAll(reviews);
+            eventPublisher.publishEvent(new ReviewsSavedEvent(List.copyOf(reviews)));
+        }));
+        batchSizes.record(reviews.size());
+    }
+
+    /**
+     * Whether a failed write may succeed if tried again later: the database was unreachable, a
+     * lock or query timed out, or the transaction could not be begun or committed. Anything else,
+     * such as a constraint violation, fails the same way every time.
+     */
+    static boolean isTransient(RuntimeException ex) {
+        return ex instanceof TransientDataAccessException
+                || ex instanceof RecoverableDataAccessException
+                || ex instanceof DataAccessResourceFailureException
+                || ex instanceof TransactionException;
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -0,0 +1,15 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.model.DiningReview;
+
+import java.util.List;
+
+/**
+ * Published when new reviews are inserted, by the submission writer and by bulk imports.
+ * Listeners that remember reviews (the duplicate detector) should handle it after commit, so a
+ * review that is rolled back or dropped is never remembered.
+ *
+ * @param reviews The reviews as they were saved.
+ */
+public record ReviewsSavedEvent(List<DiningReview> reviews) {
+}
@@ -0,0 +1,74 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.Restaurant;
+
+/**
+ * Arithmetic behind a restaurant's running score totals and the averages derived from them.
+ */
+public final class ScoreAggregates {
+
+    private ScoreAggregates() {
+    }
+
+    /**
+     * Add (sign = 1) or remove (sign = -1) a review's scores from the restaurant's totals.
+     * Scores the reviewer left out are skipped.
+     */
+    public static void accumulate(Restaurant restaurant, DiningReview review, int sign) {
+        accumulate(restaurant, review.getPeanutScore(), review.getEggScore(), review.getDairyScore(), sign);
+    }
+
+    /**
+     * Add (sign = 1) or remove (sign = -1) one review's scores, given individually, from the restaurant's totals.
+     * Null scores are skipped.
+     */
+    public static void accumulate(Restaurant restaurant, Integer peanutScore, Integer eggScore, Integer dairyScore,
+                                  int sign) {
+        if (peanutScore != null) {
+            restaurant.setPeanutScoreSum(restaurant.getPeanutScoreSum() + sign * peanutScore);
+            restaurant.setPeanutScoreCount(restaurant.getPeanutScoreCount() + sign);
+        }
+        if (eggScore != null) {
+            restaurant.setEggScoreSum(restaurant.getEggScoreSum() + sign * eggScore);
+            restaurant.setEggScoreCount(restaurant.getEggScoreCount() + sign);
+        }
+        if (dairyScore != null) {
+            restaurant.setDairyScoreSum(restaurant.getDairyScoreSum() + sign * dairyScore);
+            restaurant.setDairyScoreCount(restaurant.getDairyScoreCount() + sign);
+        }
+    }
+
+    /**
+     * Derive the per-allergy averages from the running totals.
+     * The overall score is the mean of whichever allergy averages are available.
+     */
+    public static void refreshAverages(Restaurant restaurant) {
+        Double peanut = average(restaurant.getPeanutScoreSum(), restaurant.getPeanutScoreCount());
+        Double egg = average(restaurant.getEggScoreSum(), restaurant.getEggScoreCount());
+        Double dairy = average(restaurant.getDairyScoreSum(), restaurant.getDairyScoreCount());
+
+        double overallTotal = 0;
+        int overallCount = 0;
+        for (Double score : new Double[]{peanut, egg, dairy}) {
+            if (score != null) {
+                overallTotal += score;
+                overallCount++;
+            }
+        }
+
+        restaurant.setPeanutScore(peanut);
+        restaurant.setEggScore(egg);
+        restaurant.setDairyScore(dairy);
+        restaurant.setOverallScore(overallCount == 0 ? null : round(overallTotal / overallCount));
+    }
+
+    private static Double average(long sum, long count) {
+        return count <= 0 ? null : round((double) sum / count);
+    }
+
+    // Round to two decimal places
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,246 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.config.ScoreRecomputeProperties;
+import com.irened.bitereviewapi.model.ScoreRecomputeTask;
+import com.irened.bitereviewapi.repository.ScoreRecomputeOutboxRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Updates restaurant scores in the background after their reviews change status.
+ * Each change appends a row with the review's scores and whether to add or remove them to the
+ * score_recompute_outbox table, in the caller's transaction, and marks the restaurant in an in-memory
+ * dirty set once that transaction commits. Marking the same restaurant again before it is processed
+ * coalesces into a single update. A scheduler drains the set in batches onto a small worker pool;
+ * each batch reads the outbox rows of its restaurants, adds their deltas to the running totals and
+ * deletes exactly those rows in one transaction, so every change is applied once and the cost does not
+ * grow with the number of approved reviews. A restaurant is never in two running batches at once; if it is marked while being processed, it waits for the next drain.
+ * Outbox rows left by a crash are reloaded at startup, so no change is lost.
+ * With spring.threads.virtual.enabled the workers run on virtual threads, still limited to
+ * the configured number of concurrent batches.
+ */
+@Service
+public class ScoreRecomputeQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(ScoreRecomputeQueue.class);
+
+    private final ScoreRecomputeOutboxRepository outboxRepository;
+    private final RestaurantScoreService restaurantScoreService;
+    private final ScoreRecomputeProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer recomputeTimer;
+
+    private final Map<Long, Instant> dirtySince = new ConcurrentHashMap<>();  // Restaurant ID -> first marked
+    private final Set<Long> recomputing = ConcurrentHashMap.newKeySet();  // Restaurants in a running batch
+    private final AtomicInteger batchesInFlight = new AtomicInteger();
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("score-recompute-scheduler-"));
+    private final Executor workers;
+
+    public ScoreRecomputeQueue(ScoreRecomputeOutboxRepository outboxRepository,
+                               RestaurantScoreService restaurantScoreService,
+                               ScoreRecomputeProperties properties,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               Environment environment,
+                               SimpleAsyncTaskExecutorBuilder taskExecutorBuilder) {
+        this.outboxRepository = outboxRepository;
+        this.restaurantScoreService = restaurantScoreService;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = Threading.VIRTUAL.isActive(environment)
+                ? taskExecutorBuilder.threadNamePrefix("score-recompute-")
+                        .concurrencyLimit(properties.getWorkers())
+                        .build()
+                : Executors.newFixedThreadPool(properties.getWorkers(), new CustomizableThreadFactory("score-recompute-"));
+        this.recomputeTimer = Timer.builder("bitereview.scores.recompute")
+                .description("Time to recompute and persist one batch of restaurant scores")
+                .register(meterRegistry);
+        Gauge.builder("bitereview.scores.recompute.pending", dirtySince, Map::size)
+                .description("Restaurants waiting for their scores to be recomputed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reload restaurants left in the outbox by a previous run, then start draining.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (ScoreRecomputeTask task : outboxRepository.findAll()) {
+            dirtySince.merge(task.getRestaurantId(), task.getEnqueuedAt(),
+                    (first, second) -> first.isBefore(second) ? first : second);
+        }
+        long interval = properties.getInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::drain, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        if (workers instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        } else if (workers instanceof SimpleAsyncTaskExecutor taskExecutor) {
+            taskExecutor.close();
+        }
+    }
+
+    /**
+     * Queue review changes to be applied to their restaurants' scores. The outbox rows join the
+     * caller's transaction, and the restaurants are only queued once that transaction commits.
+     *
+     * @param changes One row per review that entered or left the approved state,
+     *                from {@link ScoreRecomputeTask#forReview}.
+     */
+    @Transactional
+    public void markChanged(Collection<ScoreRecomputeTask> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        changes.forEach(change -> change.setEnqueuedAt(now));
+        outboxRepository.saveAll(changes);
+
+        Set<Long> ids = changes.stream().map(ScoreRecomputeTask::getRestaurantId).collect(Collectors.toSet());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(id -> dirtySince.putIfAbsent(id, now));
+            }
+        });
+    }
+
+    /**
+     * Number of restaurants queued and not yet picked up by a batch.
+     */
+    public int pendingCount() {
+        return dirtySince.size();
+    }
+
+    /**
+     * Number of batches currently being recomputed by the workers.
+     */
+    public int batchesInFlight() {
+        return batchesInFlight.get();
+    }
+
+    /**
+     * How long the longest-waiting restaurant has been waiting for its recompute, according to the outbox.
+     *
+     * @return The lag, or zero when nothing is pending.
+     */
+    public Duration lag() {
+        Instant oldest = outboxRepository.findOldestEnqueuedAt();
+        return oldest == null ? Duration.ZERO : Duration.between(oldest, Instant.now());
+    }
+
+    /**
+     * Recompute every queued restaurant on the calling thread and wait for in-flight batches.
+     *
+     * @param timeout How long to wait at most.
+     * @return Whether the queue was empty and no batch was running before the timeout.
+     */
+    public boolean flush(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            Map<Long, Instant> batch;
+            while (!(batch = claim()).isEmpty()) {
+                recompute(batch);
+            }
+            if (dirtySince.isEmpty() && batchesInFlight.get() == 0) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    // Hand every queued restaurant to the workers, one batch at a time
+    private void drain() {
+        Map<Long, Instant> batch;
+        while (!(batch = claim()).isEmpty()) {
+            Map<Long, Instant> claimed = batch;
+            batchesInFlight.incrementAndGet();
+            workers.execute(() -> {
+                try {
+                    recompute(claimed);
+                } finally {
+                    batchesInFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    // Remove up to one batch of restaurants from the dirty set, skipping those already being recomputed
+    private Map<Long, Instant> claim() {
+        Map<Long, Instant> batch = new HashMap<>();
+        Iterator<Long> ids = dirtySince.keySet().iterator();
+        while (ids.hasNext() && batch.size() < properties.getBatchSize()) {
+            Long id = ids.next();
+            if (!recomputing.add(id)) {
+                continue;
+            }
+            Instant markedAt = dirtySince.remove(id);
+            if (markedAt != null) {
+                batch.put(id, markedAt);
+            } else {
+                recomputing.remove(id);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Apply the pending changes of a batch. The outbox rows are read at the start of the transaction
+     * and only those rows are deleted with it; rows added after the read are left for the restaurant's
+     * next drain. A batch that loses an optimistic locking race to a concurrent update or rebuild
+     * is retried at once; a batch that still fails is put back for the next drain.
+     */
+    private void recompute(Map<Long, Instant> batch) {
+        try {
+            recomputeTimer.record(() -> OptimisticLockRetry.run(OptimisticLockRetry.DEFAULT_ATTEMPTS, () ->
+                    transactionTemplate.execute(status -> {
+                        List<ScoreRecomputeTask> changes = outboxRepository.findByRestaurantIdIn(batch.keySet());
+                        return changes.isEmpty() ? 0 : restaurantScoreService.applyChanges(changes);
+                    })));
+        } catch (RuntimeException ex) {
+            log.warn("Score recompute failed for {} restaurants, will retry", batch.size(), ex);
+            batch.forEach(dirtySince::putIfAbsent);
+        } finally {
+            recomputing.removeAll(batch.keySet());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.irened.bitereviewapi.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket holding up to burst tokens and refilled at a fixed rate. Instead of a
+ * token count and a last refill time, it keeps a single timestamp: the time at which the bucket
+ * will be full again (the generic cell rate algorithm). Taking a token moves that time one refill
+ * interval later, and is refused when it would end up more than burst intervals ahead of now, so
+ * every acquisition is one compare-and-set on an AtomicLong. Times are System.nanoTime() values.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;  // Time to refill one token
+    private final long capacityNanos;  // Time to refill the whole bucket
+    private final AtomicLong fullAt;
+
+    /**
+     * @param ratePerSecond Tokens added per second.
+     * @param burst         Tokens the bucket holds when full.
+     * @param nowNanos      The current time; the bucket starts full.
+     */
+    public TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        if (!(ratePerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        this.intervalNanos = Math.max(1, Math.round(1e9 / ratePerSecond));
+        this.capacityNanos = intervalNanos * burst;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Take a token if one is available.
+     *
+     * @param nowNanos The current time.
+     * @return 0 if a token was taken, otherwise how many nanoseconds until one will be available.
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            long wait = next - nowNanos - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Give back a token taken by {@link #tryAcquire(long)} that ended up unused.
+     */
+    public void refund() {
+        fullAt.addAndGet(-intervalNanos);
+    }
+}
@@ -0,0 +1,170 @@
+package com.irened.bitereviewapi.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable spatial index over zip code centroids, answering "which zip codes lie within r miles
+ * of this one" in memory. Centroids are bucketed into a grid of fixed-size latitude/longitude
+ * cells; the points are stored in primitive arrays sorted by cell, so each row of cells covered by
+ * a query is one binary search and a contiguous scan. Candidates are then filtered by great-circle
+ * distance.
+ */
+public final class ZipCodeGrid {
+
+    private static final double CELL_DEGREES = 0.05;  // About 3.5 miles of latitude
+    private static final int LONGITUDE_CELLS = (int) Math.round(360 / CELL_DEGREES);
+    private static final int LATITUDE_CELLS = (int) Math.round(180 / CELL_DEGREES);
+    private static final double EARTH_RADIUS_MILES = 3958.8;
+    private static final double MILES_PER_DEGREE = EARTH_RADIUS_MILES * Math.PI / 180;
+
+    private final String[] zipCodes;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] cells;  // Cell of each point, ascending
+    private final Map<String, Integer> indexByZipCode;
+
+    /**
+     * @param zipCodes   The zip codes.
+     * @param latitudes  Latitude of each zip code's centroid, in degrees.
+     * @param longitudes Longitude of each zip code's centroid, in degrees.
+     */
+    public ZipCodeGrid(List<String> zipCodes, double[] latitudes, double[] longitudes) {
+        int size = zipCodes.size();
+        Integer[] order = new Integer[size];
+        long[] unsortedCells = new long[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            unsortedCells[i] = cell(latitudeCell(latitudes[i]), longitudeCell(longitudes[i]));
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> unsortedCells[i]));
+
+        this.zipCodes = new String[size];
+        this.latitudes = new double[size];
+        this.longitudes = new double[size];
+        this.cells = new long[size];
+        this.indexByZipCode = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            int from = order[i];
+            this.zipCodes[i] = zipCodes.get(from);
+            this.latitudes[i] = latitudes[from];
+            this.longitudes[i] = longitudes[from];
+            this.cells[i] = unsortedCells[from];
+            indexByZipCode.put(this.zipCodes[i], i);
+        }
+    }
+
+    public int size() {
+        return zipCodes.length;
+    }
+
+    /**
+     * Find the zip codes whose centroids lie within the radius of a zip code's centroid.
+     *
+     * @param zipCode     The zip code at the center of the search.
+     * @param radiusMiles The radius in miles.
+     * @return Distance in miles of each zip code found, nearest first and starting with the zip code
+     *         itself, or an empty map if the zip code has no known centroid.
+     */
+    public Map<String, Double> within(String zipCode, double radiusMiles) {
+        Integer center = indexByZipCode.get(zipCode);
+        if (center == null) {
+            return Map.of();
+        }
+        double latitude = latitudes[center];
+        double longitude = longitudes[center];
+
+        double latitudeDelta = radiusMiles / MILES_PER_DEGREE;
+        double widestCos = Math.cos(Math.toRadians(Math.min(90, Math.abs(latitude) + latitudeDelta)));
+        double longitudeDelta = widestCos < 1e-6 ? 180 : Math.min(180, latitudeDelta / widestCos);
+
+        int firstRow = latitudeCell(Math.max(-90, latitude - latitudeDelta));
+        int lastRow = latitudeCell(Math.min(90, latitude + latitudeDelta));
+        int firstColumn = (int) Math.floor((longitude - longitudeDelta + 180) / CELL_DEGREES);
+        int lastColumn = (int) Math.floor((longitude + longitudeDelta + 180) / CELL_DEGREES);
+        if (lastColumn - firstColumn + 1 >= LONGITUDE_CELLS) {
+            firstColumn = 0;
+            lastColumn = LONGITUDE_CELLS - 1;
+        }
+
+        List<Integer> found = new ArrayList<>();
+        double[] distances = new double[zipCodes.length];
+        for (int row = firstRow; row <= lastRow; row++) {
+            // The column range may wrap around the antimeridian, giving two contiguous runs
+            int from = Math.floorMod(firstColumn, LONGITUDE_CELLS);
+            int to = Math.floorMod(lastColumn, LONGITUDE_CELLS);
+            if (from <= to) {
+                scan(cell(row, from), cell(row, to), latitude, longitude, latitudeDelta, radiusMiles, found, distances);
+            } else {
+                scan(cell(row, from), cell(row, LONGITUDE_CELLS - 1), latitude, longitude, latitudeDelta, radiusMiles,
+                        found, distances);
+                scan(cell(row, 0), cell(row, to), latitude, longitude, latitudeDelta, radiusMiles, found, distances);
+            }
+        }
+
+        found.sort(Comparator.comparingDouble((Integer i) -> distances[i]).thenComparing(i -> zipCodes[i]));
+        Map<String, Double> result = new LinkedHashMap<>();
+        result.put(zipCode, 0.0);
+        for (int i : found) {
+            result.putIfAbsent(zipCodes[i], distances[i]);
+        }
+        return result;
+    }
+
+    // Collect the points of the cells between the two keys that lie within the radius
+    private void scan(long firstCell, long lastCell, double latitude, double longitude, double latitudeDelta,
+                      double radiusMiles, List<Integer> found, double[] distances) {
+        for (int i = lowerBound(firstCell); i < cells.length && cells[i] <= lastCell; i++) {
+            if (Math.abs(latitudes[i] - latitude) > latitudeDelta) {
+                continue;  // Cheaper than the distance, and rules out most of the cells' corners
+            }
+            double distance = distanceMiles(latitude, longitude, latitudes[i], longitudes[i]);
+            if (distance <= radiusMiles) {
+                distances[i] = distance;
+                found.add(i);
+            }
+        }
+    }
+
+    // Index of the first point whose cell is not before the given one
+    private int lowerBound(long cell) {
+        int low = 0;
+        int high = cells.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cells[mid] < cell) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int latitudeCell(double latitude) {
+        return Math.min(LATITUDE_CELLS - 1, (int) Math.floor((latitude + 90) / CELL_DEGREES));
+    }
+
+    private static int longitudeCell(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / CELL_DEGREES), LONGITUDE_CELLS);
+    }
+
+    private static long cell(int row, int column) {
+        return (long) row * LONGITUDE_CELLS + column;
+    }
+
+    // Great-circle distance by the haversine formula
+    static double distanceMiles(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLatitude / 2) * Math.sin(dLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLongitude / 2) * Math.sin(dLongitude / 2);
+        return 2 * EARTH_RADIUS_MILES * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
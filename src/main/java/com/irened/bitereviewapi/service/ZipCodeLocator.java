@@ -0,0 +1,103 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.config.GeoProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Resolves the zip codes near a given one, entirely in memory. Zip code centroids are read once at
+ * startup from a tab-separated file in the layout of the US Census ZCTA Gazetteer, so the lookup
+ * needs no network access, and kept in a {@link ZipCodeGrid}.
+ */
+@Service
+public class ZipCodeLocator {
+
+    private static final Logger log = LoggerFactory.getLogger(ZipCodeLocator.class);
+
+    private final ZipCodeGrid grid;
+
+    public ZipCodeLocator(GeoProperties properties, ResourceLoader resourceLoader) {
+        Resource resource = resourceLoader.getResource(properties.getZipCentroids());
+        try {
+            this.grid = load(resource);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to load zip code centroids from " + resource, ex);
+        }
+        log.info("Loaded {} zip code centroids from {}", grid.size(), resource);
+    }
+
+    /**
+     * Find the zip codes within the radius of a zip code.
+     *
+     * @param zipCode     The zip code at the center of the search.
+     * @param radiusMiles The radius in miles.
+     * @return Distance in miles of each zip code found, nearest first, or empty if the zip code has
+     *         no known centroid and so no known neighbors.
+     */
+    public Optional<Map<String, Double>> within(String zipCode, double radiusMiles) {
+        Map<String, Double> distances = grid.within(zipCode, radiusMiles);
+        return distances.isEmpty() ? Optional.empty() : Optional.of(distances);
+    }
+
+    /**
+     * Read the GEOID, INTPTLAT and INTPTLONG columns, located by the header line, skipping comment lines.
+     */
+    private static ZipCodeGrid load(Resource resource) throws IOException {
+        List<String> zipCodes = new ArrayList<>();
+        double[] latitudes = new double[1024];
+        double[] longitudes = new double[1024];
+
+        InputStream input = resource.getInputStream();
+        if (resource.getFilename() != null && resource.getFilename().endsWith(".gz")) {
+            input = new GZIPInputStream(input);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            int zipCodeColumn = -1;
+            int latitudeColumn = -1;
+            int longitudeColumn = -1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (zipCodeColumn < 0) {
+                    List<String> header = Arrays.stream(fields).map(String::trim).toList();
+                    zipCodeColumn = header.indexOf("GEOID");
+                    latitudeColumn = header.indexOf("INTPTLAT");
+                    longitudeColumn = header.indexOf("INTPTLONG");
+                    if (zipCodeColumn < 0 || latitudeColumn < 0 || longitudeColumn < 0) {
+                        throw new IOException("Missing GEOID, INTPTLAT or INTPTLONG column in " + resource);
+                    }
+                    continue;
+                }
+
+                int size = zipCodes.size();
+                if (size == latitudes.length) {
+                    latitudes = Arrays.copyOf(latitudes, size * 2);
+                    longitudes = Arrays.copyOf(longitudes, size * 2);
+                }
+                zipCodes.add(fields[zipCodeColumn].trim());
+                latitudes[size] = Double.parseDouble(fields[latitudeColumn].trim());
+                longitudes[size] = Double.parseDouble(fields[longitudeColumn].trim());
+            }
+        }
+        return new ZipCodeGrid(zipCodes, latitudes, longitudes);
+    }
+}
@@ -0,0 +1,11 @@
+-- Restaurants whose scores must be recomputed from their approved reviews. A row is written in the
+-- same transaction as the review change and deleted once the recompute has committed, so pending
+-- recomputes survive a restart. Repeated changes to one restaurant share a single row.
+
+CREATE TABLE score_recompute_outbox (
+    restaurant_id BIGINT NOT NULL PRIMARY KEY,
+    first_enqueued_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    last_enqueued_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_score_recompute_outbox_first_enqueued_at ON score_recompute_outbox (first_enqueued_at);
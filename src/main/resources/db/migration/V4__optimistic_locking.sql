@@ -0,0 +1,5 @@
+-- Version columns for optimistic locking, so concurrent updates to the same restaurant or
+-- review are detected instead of the last writer silently overwriting the other.
+
+ALTER TABLE restaurant ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE dining_reviews ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
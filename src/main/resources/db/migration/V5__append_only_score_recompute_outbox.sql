@@ -0,0 +1,18 @@
+-- Make the score recompute outbox append-only. Each review change inserts its own row, so
+-- concurrent approvals for the same restaurant no longer race to upsert a single row.
+-- Rows are coalesced in memory and deleted together once the restaurant is recomputed.
+
+CREATE TABLE score_recompute_marks (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    restaurant_id  BIGINT NOT NULL,
+    enqueued_at    TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+INSERT INTO score_recompute_marks (restaurant_id, enqueued_at)
+SELECT restaurant_id, first_enqueued_at FROM score_recompute_outbox;
+
+DROP TABLE score_recompute_outbox;
+ALTER TABLE score_recompute_marks RENAME TO score_recompute_outbox;
+
+CREATE INDEX idx_score_recompute_outbox_restaurant_id ON score_recompute_outbox (restaurant_id, enqueued_at);
+CREATE INDEX idx_score_recompute_outbox_enqueued_at ON score_recompute_outbox (enqueued_at);
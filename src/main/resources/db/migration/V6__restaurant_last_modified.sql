@@ -0,0 +1,4 @@
+-- Time of each restaurant's last change, served as Last-Modified for conditional requests.
+-- Existing rows start at the time of the migration.
+
+ALTER TABLE restaurant ADD COLUMN last_modified TIMESTAMP(6) WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL;
@@ -0,0 +1,13 @@
+-- Materialized per-zip-code rankings, one row per restaurant and ranking. A ranking is the overall
+-- score (allergy_mask 0) or a set of allergies (bit 1 peanut, 2 egg, 4 dairy). Ranks start at 1 and
+-- have no gaps, so a page of a ranking is read as a range of the primary key.
+-- The rows are filled in by the application at startup.
+
+CREATE TABLE restaurant_leaderboard (
+    zip_code       VARCHAR(255) NOT NULL,
+    allergy_mask   INTEGER NOT NULL,
+    rank           INTEGER NOT NULL,
+    restaurant_id  BIGINT NOT NULL,
+    score          FLOAT(53) NOT NULL,
+    PRIMARY KEY (zip_code, allergy_mask, rank)
+);
@@ -0,0 +1,3 @@
+-- Finds a user's reviews of a restaurant, to confirm a suspected duplicate submission.
+
+CREATE INDEX idx_dining_reviews_display_name_restaurant_id ON dining_reviews (display_name, restaurant_id);
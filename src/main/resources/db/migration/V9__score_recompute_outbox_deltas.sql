@@ -0,0 +1,14 @@
+-- Carry each review change's score delta in its outbox row, so a restaurant's running totals are
+-- updated in O(1) per change instead of being re-summed from all of its approved reviews.
+-- A review's status change is identified by the review and the version it was made on; the
+-- unique constraint refuses a second row for the same change. Scores the reviewer left out are null.
+
+ALTER TABLE score_recompute_outbox ADD COLUMN review_id BIGINT NOT NULL;
+ALTER TABLE score_recompute_outbox ADD COLUMN review_version BIGINT NOT NULL;
+ALTER TABLE score_recompute_outbox ADD COLUMN score_sign INTEGER NOT NULL;
+ALTER TABLE score_recompute_outbox ADD COLUMN peanut_score INTEGER;
+ALTER TABLE score_recompute_outbox ADD COLUMN egg_score INTEGER;
+ALTER TABLE score_recompute_outbox ADD COLUMN dairy_score INTEGER;
+
+ALTER TABLE score_recompute_outbox ADD CONSTRAINT uk_score_recompute_outbox_review_id_version
+    UNIQUE (review_id, review_version);
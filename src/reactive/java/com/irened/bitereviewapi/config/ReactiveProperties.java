@@ -0,0 +1,13 @@
+package com.irened.bitereviewapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bitereview.reactive")
+public class ReactiveProperties {
+    private String h2Url;  // H2 database URL without the jdbc:h2: prefix; defaults to the JDBC datasource's
+    private int maxConnections = 16;  // Upper bound on R2DBC connections
+}
@@ -0,0 +1,91 @@
+package com.irened.bitereviewapi.reactive;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.irened.bitereviewapi.service.NdjsonStreamer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.config.BlockingExecutionConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * WebFlux setup for the reactive profile (spring.main.web-application-type=reactive).
+ * The read endpoints are served by {@link ReactiveReadHandler} through router functions, which
+ * WebFlux consults before annotated controllers. Every other endpoint is still served by the
+ * MVC controllers, whose blocking methods WebFlux runs on the application task executor instead
+ * of the event loop. Responses are JSON, newline-delimited JSON or Smile; CBOR is only offered by
+ * the MVC stack, since a CBOR writer ahead of JSON would also answer requests accepting any type.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReadConfig implements WebFluxConfigurer {
+
+    // Only clients that ask for newline-delimited JSON get the streaming variants, as with the MVC controllers
+    private static final RequestPredicate ACCEPTS_NDJSON = request -> request.headers().accept().stream()
+            .anyMatch(NdjsonStreamer.CONTENT_TYPE::equalsTypeAndSubtype);
+
+    private final AsyncTaskExecutor blockingExecutor;
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    public ReactiveReadConfig(@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                              AsyncTaskExecutor blockingExecutor,
+                              Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.blockingExecutor = blockingExecutor;
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> reactiveReadRoutes(ReactiveReadHandler handler) {
+        return RouterFunctions.route()
+                .GET("/api/restaurants", ACCEPTS_NDJSON, handler::streamAllRestaurants)
+                .GET("/api/restaurants", handler::getAllRestaurants)
+                .GET("/api/restaurants/search", handler::searchRestaurants)
+                .GET("/api/restaurants/{id}", handler::getRestaurant)
+                .GET("/api/reviews/restaurant/{restaurantId}", ACCEPTS_NDJSON, handler::streamReviewsByRestaurant)
+                .GET("/api/reviews/restaurant/{restaurantId}", handler::getReviewsByRestaurant)
+                .GET("/api/admin/reviews/pending", ACCEPTS_NDJSON, handler::streamPendingReviews)
+                .GET("/api/admin/reviews/pending", handler::getPendingReviews)
+                .POST("/api/reviews/bulk", RequestPredicates.contentType(MediaType.APPLICATION_JSON, NdjsonStreamer.CONTENT_TYPE),
+                        handler::submitReviews)
+                .build();
+    }
+
+    // Runs blocking work off the event loop, on the same executor as the blocking controller methods
+    @Bean
+    public Scheduler blockingScheduler() {
+        return Schedulers.fromExecutor(blockingExecutor);
+    }
+
+    @Override
+    public void configureBlockingExecution(BlockingExecutionConfigurer configurer) {
+        configurer.setExecutor(blockingExecutor);
+    }
+
+    // Netty rather than the Tomcat that the MVC stack puts on the classpath, which Spring Boot would otherwise prefer
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    // Smile written with the application's Jackson settings, as JacksonConfig does for MVC
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(
+                objectMapperBuilder.factory(new SmileFactory()).indentOutput(false).build(), ReactiveReadHandler.SMILE));
+    }
+}
@@ -0,0 +1,399 @@
+package com.irened.bitereviewapi.reactive;
+
+import com.irened.bitereviewapi.config.GeoProperties;
+import com.irened.bitereviewapi.config.HttpCacheProperties;
+import com.irened.bitereviewapi.config.NegotiatedETags;
+import com.irened.bitereviewapi.config.PaginationProperties;
+import com.irened.bitereviewapi.model.AllergyRanking;
+import com.irened.bitereviewapi.model.DiningReviewSummary;
+import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.RestaurantSummary;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import com.irened.bitereviewapi.service.CachedLookupService;
+import com.irened.bitereviewapi.service.NdjsonStreamer;
+import com.irened.bitereviewapi.service.RestaurantSearchIndex;
+import com.irened.bitereviewapi.service.ReviewIngestionService;
+import com.irened.bitereviewapi.service.ZipCodeLocator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Reactive versions of the read endpoints, served when the application runs on WebFlux.
+ * Parameters, validation, headers and response bodies match the MVC controllers. Database reads
+ * go through {@link ReactiveReadRepository} and never block a request thread; newline-delimited
+ * JSON responses are written as rows arrive, at the pace the client reads them. Searches are
+ * answered from the in-memory search index, and restaurant lookups from the restaurant cache
+ * when it holds the restaurant.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReadHandler {
+
+    private static final int NDJSON_PREFETCH = 256;  // Rows buffered ahead of the network while streaming
+    static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private final ReactiveReadRepository reactiveReadRepository;
+    private final PaginationProperties paginationProperties;
+    private final HttpCacheProperties httpCacheProperties;
+    private final GeoProperties geoProperties;
+    private final RestaurantSearchIndex restaurantSearchIndex;
+    private final ZipCodeLocator zipCodeLocator;
+    private final ReviewIngestionService reviewIngestionService;
+    private final Cache restaurantCache;
+    private final Scheduler blockingScheduler;
+    private final Pattern zipCodePattern = Pattern.compile("\\d{5}");
+
+    public ReactiveReadHandler(ReactiveReadRepository reactiveReadRepository,
+                               PaginationProperties paginationProperties,
+                               HttpCacheProperties httpCacheProperties,
+                               GeoProperties geoProperties,
+                               RestaurantSearchIndex restaurantSearchIndex,
+                               ZipCodeLocator zipCodeLocator,
+                               ReviewIngestionService reviewIngestionService,
+                               CacheManager cacheManager,
+                               Scheduler blockingScheduler) {
+        this.reactiveReadRepository = reactiveReadRepository;
+        this.paginationProperties = paginationProperties;
+        this.httpCacheProperties = httpCacheProperties;
+        this.geoProperties = geoProperties;
+        this.restaurantSearchIndex = restaurantSearchIndex;
+        this.zipCodeLocator = zipCodeLocator;
+        this.reviewIngestionService = reviewIngestionService;
+        this.restaurantCache = cacheManager.getCache(CachedLookupService.RESTAURANTS_CACHE);
+        this.blockingScheduler = blockingScheduler;
+    }
+
+    /**
+     * Retrieve a page of restaurants ordered by ID, addressed by page number or afterId cursor,
+     * with the X-Next-Page and X-Next-Cursor headers of {@code GET /api/restaurants}.
+     */
+    public Mono<ServerResponse> getAllRestaurants(ServerRequest request) {
+        int pageSize = paginationProperties.resolvePageSize(intParam(request, "size"));
+        Long afterId = longParam(request, "afterId");
+        HttpHeaders headers = new HttpHeaders();
+        Mono<List<RestaurantSummary>> restaurants;
+
+        if (afterId != null) {
+            restaurants = reactiveReadRepository.findRestaurantsAfter(afterId, pageSize).collectList();
+        } else {
+            Integer page = intParam(request, "page");
+            int pageNumber = page == null ? 0 : page;
+            if (pageNumber < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page number cannot be negative");
+            }
+            // One extra row tells whether another page follows
+            restaurants = reactiveReadRepository.findRestaurants((long) pageNumber * pageSize, pageSize + 1)
+                    .collectList()
+                    .map(found -> {
+                        if (found.size() > pageSize) {
+                            headers.set(PaginationProperties.NEXT_PAGE_HEADER, String.valueOf(pageNumber + 1));
+                            return found.subList(0, pageSize);
+                        }
+                        return found;
+                    });
+        }
+
+        return restaurants.flatMap(page -> {
+            if (page.size() == pageSize) {
+                headers.set(PaginationProperties.NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).id()));
+            }
+            return ok(request).headers(h -> h.addAll(headers)).bodyValue(page);
+        });
+    }
+
+    /**
+     * Stream the full restaurant catalog as newline-delimited JSON.
+     */
+    public Mono<ServerResponse> streamAllRestaurants(ServerRequest request) {
+        return ndjson(reactiveReadRepository.streamRestaurants(), RestaurantSummary.class);
+    }
+
+    /**
+     * Retrieve a restaurant by ID with its ETag and Last-Modified time, answering a matching
+     * conditional request with 304 Not Modified.
+     */
+    public Mono<ServerResponse> getRestaurant(ServerRequest request) {
+        long id = parseLong(request.pathVariable("id"), "id");
+        Cache.ValueWrapper cached = restaurantCache == null ? null : restaurantCache.get(id);
+        Mono<Restaurant> restaurant = cached != null && cached.get() instanceof Restaurant hit
+                ? Mono.just(hit)
+                : reactiveReadRepository.findRestaurant(id).doOnNext(found -> {
+                    if (restaurantCache != null) {
+                        restaurantCache.put(id, found);
+                    }
+                });
+
+        return restaurant
+                .flatMap(found -> {
+                    String eTag = NegotiatedETags.of(found.getId() + "-" + found.getVersion(), responseType(request));
+                    return request.checkNotModified(found.getLastModified(), eTag)
+                            .switchIfEmpty(Mono.defer(() -> ok(request)
+                                    .eTag(eTag)
+                                    .varyBy(NegotiatedETags.VARY)
+                                    .lastModified(found.getLastModified())
+                                    .cacheControl(httpCacheProperties.restaurantCacheControl())
+                                    .bodyValue(found)));
+                })
+                .switchIfEmpty(Mono.defer(() -> errorResponse("Restaurant not found", HttpStatus.NOT_FOUND)));
+    }
+
+    /**
+     * Search restaurants by zip code, allergy ranking and optional radius, with the same
+     * parameters and validation as {@code GET /api/restaurants/search}.
+     */
+    public Mono<ServerResponse> searchRestaurants(ServerRequest request) {
+        String zipcode = requiredParam(request, "zipcode");
+        String allergy = requiredParam(request, "allergy");
+        Integer limit = intParam(request, "limit");
+        Integer offsetParam = intParam(request, "offset");
+        int offset = offsetParam == null ? 0 : offsetParam;
+        Double radiusMiles = request.queryParam("radiusMiles").map(value -> parseDouble(value, "radiusMiles")).orElse(null);
+
+        validateZipCode(zipcode);
+        if (limit != null && limit <= 0) {
+            return errorResponse("Limit must be positive", HttpStatus.BAD_REQUEST);
+        }
+        if (offset < 0) {
+            return errorResponse("Offset cannot be negative", HttpStatus.BAD_REQUEST);
+        }
+
+        Optional<AllergyRanking> ranking = AllergyRanking.fromName(allergy);
+        if (ranking.isEmpty()) {
+            return errorResponse("Invalid allergy type", HttpStatus.BAD_REQUEST);
+        }
+
+        Map<String, Double> distanceByZipCode = Map.of(zipcode, 0.0);
+        if (radiusMiles != null) {
+            if (!(radiusMiles > 0 && radiusMiles <= geoProperties.getMaxRadiusMiles())) {
+                return errorResponse("Radius must be positive and at most "
+                        + geoProperties.getMaxRadiusMiles() + " miles", HttpStatus.BAD_REQUEST);
+            }
+            Optional<Map<String, Double>> nearby = zipCodeLocator.within(zipcode, radiusMiles);
+            if (nearby.isEmpty()) {
+                return errorResponse("No location known for zip code " + zipcode
+                        + ", so it cannot be searched by radius", HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            distanceByZipCode = nearby.get();
+        }
+
+        if (!restaurantSearchIndex.isReady()) {
+            Flux<RestaurantSummary> ranked = radiusMiles == null
+                    ? reactiveReadRepository.findRanked(zipcode, ranking.get().mask(), offset,
+                            limit == null ? Integer.MAX_VALUE : limit)
+                    : searchLeaderboardNearby(distanceByZipCode, ranking.get(), offset, limit);
+            return ranked.collectList().flatMap(restaurants -> ok(request).bodyValue(restaurants));
+        }
+
+        Map<String, Double> zipCodes = distanceByZipCode;
+        RestaurantSearchIndex.Generation generation = radiusMiles == null
+                ? restaurantSearchIndex.generation(zipcode)
+                : restaurantSearchIndex.generation(zipCodes.keySet());
+        String eTag = NegotiatedETags.of(generation.tag(), responseType(request));
+        return request.checkNotModified(generation.lastModified(), eTag)
+                .switchIfEmpty(Mono.defer(() -> ok(request)
+                        .eTag(eTag)
+                        .varyBy(NegotiatedETags.VARY)
+                        .lastModified(generation.lastModified())
+                        .cacheControl(httpCacheProperties.searchCacheControl())
+                        .bodyValue(radiusMiles == null
+                                ? restaurantSearchIndex.search(zipcode, ranking.get(), offset, limit)
+                                : restaurantSearchIndex.searchNearby(zipCodes, ranking.get(), offset, limit))));
+    }
+
+    /**
+     * Retrieve a page of a restaurant's reviews keyed on review ID, with the X-Next-Cursor header
+     * of {@code GET /api/reviews/restaurant/{restaurantId}}.
+     */
+    public Mono<ServerResponse> getReviewsByRestaurant(ServerRequest request) {
+        long restaurantId = parseLong(request.pathVariable("restaurantId"), "restaurantId");
+        ReviewStatus status = parseOptionalStatus(request.queryParam("status").orElse(null));
+        int pageSize = paginationProperties.resolvePageSize(intParam(request, "size"));
+        Long afterId = longParam(request, "afterId");
+
+        return reactiveReadRepository.findReviewsByRestaurant(restaurantId, status, afterId == null ? 0L : afterId, pageSize)
+                .collectList()
+                .flatMap(reviews -> {
+                    ServerResponse.BodyBuilder response = ok(request);
+                    if (reviews.size() == pageSize) {
+                        response.header(PaginationProperties.NEXT_CURSOR_HEADER,
+                                String.valueOf(reviews.get(reviews.size() - 1).id()));
+                    }
+                    return response.bodyValue(reviews);
+                });
+    }
+
+    /**
+     * Stream all of a restaurant's reviews as newline-delimited JSON.
+     */
+    public Mono<ServerResponse> streamReviewsByRestaurant(ServerRequest request) {
+        long restaurantId = parseLong(request.pathVariable("restaurantId"), "restaurantId");
+        ReviewStatus status = parseOptionalStatus(request.queryParam("status").orElse(null));
+        return ndjson(reactiveReadRepository.streamReviewsByRestaurant(restaurantId, status), DiningReviewSummary.class);
+    }
+
+    /**
+     * Fetch a page of pending reviews and the cursor for the next page, as
+     * {@code GET /api/admin/reviews/pending} does.
+     */
+    public Mono<ServerResponse> getPendingReviews(ServerRequest request) {
+        int pageSize = paginationProperties.resolvePageSize(intParam(request, "size"));
+        Long afterId = longParam(request, "afterId");
+
+        return reactiveReadRepository.findReviewsByStatus(ReviewStatus.PENDING, afterId == null ? 0L : afterId, pageSize)
+                .collectList()
+                .flatMap(pendingReviews -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("pendingReviews", pendingReviews);
+                    if (pendingReviews.size() == pageSize) {
+                        response.put("nextCursor", pendingReviews.get(pendingReviews.size() - 1).id());
+                    }
+                    return ok(request).bodyValue(response);
+                });
+    }
+
+    /**
+     * Stream all pending reviews as newline-delimited JSON.
+     */
+    public Mono<ServerResponse> streamPendingReviews(ServerRequest request) {
+        Long afterId = longParam(request, "afterId");
+        return ndjson(reactiveReadRepository.streamReviewsByStatus(ReviewStatus.PENDING, afterId == null ? 0L : afterId),
+                DiningReviewSummary.class);
+    }
+
+    /**
+     * Submit reviews in bulk, like {@code POST /api/reviews/bulk}. The ingestion reads a blocking
+     * stream and writes through JPA, so it runs on the blocking scheduler and is fed the request
+     * body as it arrives.
+     */
+    public Mono<ServerResponse> submitReviews(ServerRequest request) {
+        return Mono.fromCallable(() -> {
+                    try (InputStream body = DataBufferUtils.subscriberInputStream(
+                            request.body(BodyExtractors.toDataBuffers()), 16)) {
+                        return reviewIngestionService.ingest(body);
+                    } catch (IOException | UncheckedIOException ex) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed request body.");
+                    }
+                })
+                .subscribeOn(blockingScheduler)
+                .flatMap(results -> {
+                    long rejected = results.stream().filter(result -> result.getError() != null).count();
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("accepted", results.size() - rejected);
+                    response.put("rejected", rejected);
+                    response.put("results", results);
+                    return ServerResponse.status(HttpStatus.ACCEPTED).contentType(responseType(request)).bodyValue(response);
+                });
+    }
+
+    // Read the best restaurants of several zip codes' leaderboards with one query, merged by score then distance
+    private Flux<RestaurantSummary> searchLeaderboardNearby(Map<String, Double> distanceByZipCode, AllergyRanking ranking,
+                                                            int offset, Integer limit) {
+        int end = limit == null ? Integer.MAX_VALUE : (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        return reactiveReadRepository.findRankedIn(distanceByZipCode.keySet(), ranking.mask(), end)
+                .collectList()
+                .flatMapIterable(restaurants -> {
+                    List<RestaurantSummary> ranked = ranking.rank(restaurants, distanceByZipCode);
+                    return ranked.subList(Math.min(ranked.size(), offset), Math.min(ranked.size(), end));
+                });
+    }
+
+    // A 200 response in the format the client accepts. Router functions do not negotiate the format themselves.
+    private static ServerResponse.BodyBuilder ok(ServerRequest request) {
+        return ServerResponse.ok().contentType(responseType(request));
+    }
+
+    private static MediaType responseType(ServerRequest request) {
+        boolean smile = request.headers().accept().stream().anyMatch(SMILE::equalsTypeAndSubtype);
+        return smile ? SMILE : MediaType.APPLICATION_JSON;
+    }
+
+    private <T> Mono<ServerResponse> ndjson(Flux<T> rows, Class<T> type) {
+        return ServerResponse.ok()
+                .contentType(NdjsonStreamer.CONTENT_TYPE)
+                .body(rows.limitRate(NDJSON_PREFETCH), type);
+    }
+
+    private void validateZipCode(String zipcode) {
+        if (!zipCodePattern.matcher(zipcode).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid zip code format");
+        }
+    }
+
+    private static ReviewStatus parseOptionalStatus(String status) {
+        if (status == null) {
+            return null;
+        }
+        try {
+            return ReviewStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid review status.");
+        }
+    }
+
+    private static String requiredParam(ServerRequest request, String name) {
+        return request.queryParam(name).orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Required parameter '" + name + "' is not present."));
+    }
+
+    private static Integer intParam(ServerRequest request, String name) {
+        return request.queryParam(name).map(value -> {
+            try {
+                return Integer.valueOf(value);
+            } catch (NumberFormatException ex) {
+                throw invalidParam(name);
+            }
+        }).orElse(null);
+    }
+
+    private static Long longParam(ServerRequest request, String name) {
+        return request.queryParam(name).map(value -> parseLong(value, name)).orElse(null);
+    }
+
+    private static long parseLong(String value, String name) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            throw invalidParam(name);
+        }
+    }
+
+    private static double parseDouble(String value, String name) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            throw invalidParam(name);
+        }
+    }
+
+    private static ResponseStatusException invalidParam(String name) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid value for parameter '" + name + "'.");
+    }
+
+    private static Mono<ServerResponse> errorResponse(String message, HttpStatus status) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", message);
+        return ServerResponse.status(status).bodyValue(errorResponse);
+    }
+}
@@ -0,0 +1,218 @@
+package com.irened.bitereviewapi.reactive;
+
+import com.irened.bitereviewapi.config.ReactiveProperties;
+import com.irened.bitereviewapi.model.DiningReviewSummary;
+import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.RestaurantSummary;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import io.r2dbc.spi.Readable;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Non-blocking queries behind the reactive read endpoints, run over R2DBC against the same H2
+ * database the JPA repositories use. Rows are mapped straight to the read-only summaries, and a
+ * {@link Flux} only pulls rows from the database as fast as its subscriber requests them.
+ * The connection pool is private to this class: a ConnectionFactory bean would make Spring Boot
+ * back off from the JDBC DataSource that JPA and Flyway still need.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReadRepository {
+
+    private static final String JDBC_H2_PREFIX = "jdbc:h2:";
+    private static final Option<String> H2_URL = Option.valueOf("url");
+
+    private static final String RESTAURANT_SUMMARY_COLUMNS =
+            "r.id, r.name, r.zip_code, r.peanut_score, r.egg_score, r.dairy_score, r.overall_score";
+    private static final String REVIEW_SUMMARY_COLUMNS =
+            "id, display_name, restaurant_id, peanut_score, egg_score, dairy_score, commentary, status";
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+
+    public ReactiveReadRepository(ReactiveProperties properties, DataSourceProperties dataSourceProperties) {
+        String url = properties.getH2Url();
+        if (url == null) {
+            String jdbcUrl = dataSourceProperties.determineUrl();
+            if (jdbcUrl == null || !jdbcUrl.startsWith(JDBC_H2_PREFIX)) {
+                throw new IllegalStateException("Set bitereview.reactive.h2-url, the datasource is not H2: " + jdbcUrl);
+            }
+            url = jdbcUrl.substring(JDBC_H2_PREFIX.length());
+        }
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.builder()
+                .option(ConnectionFactoryOptions.DRIVER, "h2")
+                .option(H2_URL, url)
+                .option(ConnectionFactoryOptions.USER, Objects.requireNonNullElse(dataSourceProperties.determineUsername(), ""))
+                .option(ConnectionFactoryOptions.PASSWORD,
+                        Objects.requireNonNullElse(dataSourceProperties.determinePassword(), ""))  // Null when blank for file databases
+                .build();
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("bitereview-r2dbc")
+                .initialSize(Math.min(4, properties.getMaxConnections()))
+                .maxSize(properties.getMaxConnections())
+                .build());
+        this.databaseClient = DatabaseClient.create(connectionPool);
+    }
+
+    @PreDestroy
+    public void close() {
+        connectionPool.dispose();
+    }
+
+    // Fetch up to limit restaurants with an ID greater than afterId, ordered by ID
+    public Flux<RestaurantSummary> findRestaurantsAfter(long afterId, int limit) {
+        return databaseClient.sql("SELECT " + RESTAURANT_SUMMARY_COLUMNS
+                        + " FROM restaurant r WHERE r.id > :afterId ORDER BY r.id LIMIT :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveReadRepository::restaurantSummary)
+                .all();
+    }
+
+    // Fetch up to limit restaurants ordered by ID, skipping the first offset
+    public Flux<RestaurantSummary> findRestaurants(long offset, int limit) {
+        return databaseClient.sql("SELECT " + RESTAURANT_SUMMARY_COLUMNS
+                        + " FROM restaurant r ORDER BY r.id LIMIT :limit OFFSET :offset")
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(ReactiveReadRepository::restaurantSummary)
+                .all();
+    }
+
+    // Stream every restaurant ordered by ID
+    public Flux<RestaurantSummary> streamRestaurants() {
+        return databaseClient.sql("SELECT " + RESTAURANT_SUMMARY_COLUMNS + " FROM restaurant r ORDER BY r.id")
+                .map(ReactiveReadRepository::restaurantSummary)
+                .all();
+    }
+
+    // Find a restaurant by ID, with the version and modification time needed for conditional requests
+    public Mono<Restaurant> findRestaurant(long id) {
+        return databaseClient.sql("SELECT " + RESTAURANT_SUMMARY_COLUMNS + ", r.version, r.last_modified"
+                        + " FROM restaurant r WHERE r.id = :id")
+                .bind("id", id)
+                .map(row -> {
+                    Restaurant restaurant = new Restaurant();
+                    restaurant.setId(row.get("id", Long.class));
+                    restaurant.setName(row.get("name", String.class));
+                    restaurant.setZipCode(row.get("zip_code", String.class));
+                    restaurant.setPeanutScore(row.get("peanut_score", Double.class));
+                    restaurant.setEggScore(row.get("egg_score", Double.class));
+                    restaurant.setDairyScore(row.get("dairy_score", Double.class));
+                    restaurant.setOverallScore(row.get("overall_score", Double.class));
+                    restaurant.setVersion(row.get("version", Long.class));
+                    OffsetDateTime lastModified = row.get("last_modified", OffsetDateTime.class);
+                    restaurant.setLastModified(lastModified == null ? null : lastModified.toInstant());
+                    return restaurant;
+                })
+                .one();
+    }
+
+    // Fetch the restaurants ranked after the given position in a zip code's leaderboard, best first
+    public Flux<RestaurantSummary> findRanked(String zipCode, int allergyMask, int offset, int limit) {
+        return databaseClient.sql("SELECT " + RESTAURANT_SUMMARY_COLUMNS
+                        + " FROM restaurant_leaderboard e JOIN restaurant r ON r.id = e.restaurant_id"
+                        + " WHERE e.zip_code = :zipCode AND e.allergy_mask = :allergyMask AND e.rank > :offset"
+                        + " ORDER BY e.rank LIMIT :limit")
+                .bind("zipCode", zipCode)
+                .bind("allergyMask", allergyMask)
+                .bind("offset", offset)
+                .bind("limit", limit)
+                .map(ReactiveReadRepository::restaurantSummary)
+                .all();
+    }
+
+    // Fetch the restaurants ranked up to the given position in each of the zip codes' leaderboards, in no
+    // particular order. As in LeaderboardRepository, the rank bound is an expression so H2 keeps using the key.
+    public Flux<RestaurantSummary> findRankedIn(Collection<String> zipCodes, int allergyMask, int maxRank) {
+        return databaseClient.sql("SELECT " + RESTAURANT_SUMMARY_COLUMNS
+                        + " FROM restaurant_leaderboard e JOIN restaurant r ON r.id = e.restaurant_id"
+                        + " WHERE e.zip_code IN (:zipCodes) AND e.allergy_mask = :allergyMask AND e.rank + 0 <= :maxRank")
+                .bind("zipCodes", zipCodes)
+                .bind("allergyMask", allergyMask)
+                .bind("maxRank", maxRank)
+                .map(ReactiveReadRepository::restaurantSummary)
+                .all();
+    }
+
+    // Fetch up to limit reviews of a restaurant with an ID greater than afterId, optionally by status, ordered by ID
+    public Flux<DiningReviewSummary> findReviewsByRestaurant(long restaurantId, ReviewStatus status,
+                                                             long afterId, int limit) {
+        return reviewsByRestaurant(restaurantId, status, " AND id > :afterId ORDER BY id LIMIT :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveReadRepository::reviewSummary)
+                .all();
+    }
+
+    // Stream every review of a restaurant, optionally by status, ordered by ID
+    public Flux<DiningReviewSummary> streamReviewsByRestaurant(long restaurantId, ReviewStatus status) {
+        return reviewsByRestaurant(restaurantId, status, " ORDER BY id")
+                .map(ReactiveReadRepository::reviewSummary)
+                .all();
+    }
+
+    // Fetch up to limit reviews in a status with an ID greater than afterId, ordered by ID
+    public Flux<DiningReviewSummary> findReviewsByStatus(ReviewStatus status, long afterId, int limit) {
+        return databaseClient.sql("SELECT " + REVIEW_SUMMARY_COLUMNS
+                        + " FROM dining_reviews WHERE status = CAST(:status AS VARCHAR(16)) AND id > :afterId ORDER BY id LIMIT :limit")
+                .bind("status", status.name())
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveReadRepository::reviewSummary)
+                .all();
+    }
+
+    // Stream every review in a status with an ID greater than afterId, ordered by ID
+    public Flux<DiningReviewSummary> streamReviewsByStatus(ReviewStatus status, long afterId) {
+        return databaseClient.sql("SELECT " + REVIEW_SUMMARY_COLUMNS
+                        + " FROM dining_reviews WHERE status = CAST(:status AS VARCHAR(16)) AND id > :afterId ORDER BY id")
+                .bind("status", status.name())
+                .bind("afterId", afterId)
+                .map(ReactiveReadRepository::reviewSummary)
+                .all();
+    }
+
+    private DatabaseClient.GenericExecuteSpec reviewsByRestaurant(long restaurantId, ReviewStatus status,
+                                                                  String orderAndLimit) {
+        if (status == null) {
+            return databaseClient.sql("SELECT " + REVIEW_SUMMARY_COLUMNS
+                            + " FROM dining_reviews WHERE restaurant_id = :restaurantId" + orderAndLimit)
+                    .bind("restaurantId", restaurantId);
+        }
+        return databaseClient.sql("SELECT " + REVIEW_SUMMARY_COLUMNS
+                        + " FROM dining_reviews WHERE restaurant_id = :restaurantId AND status = CAST(:status AS VARCHAR(16))" + orderAndLimit)
+                .bind("restaurantId", restaurantId)
+                .bind("status", status.name());
+    }
+
+    private static RestaurantSummary restaurantSummary(Readable row) {
+        return new RestaurantSummary(row.get("id", Long.class), row.get("name", String.class),
+                row.get("zip_code", String.class), row.get("peanut_score", Double.class),
+                row.get("egg_score", Double.class), row.get("dairy_score", Double.class),
+                row.get("overall_score", Double.class));
+    }
+
+    private static DiningReviewSummary reviewSummary(Readable row) {
+        String status = row.get("status", String.class);
+        return new DiningReviewSummary(row.get("id", Long.class), row.get("display_name", String.class),
+                row.get("restaurant_id", Long.class), row.get("peanut_score", Integer.class),
+                row.get("egg_score", Integer.class), row.get("dairy_score", Integer.class),
+                row.get("commentary", String.class), status == null ? null : ReviewStatus.valueOf(status));
+    }
+}
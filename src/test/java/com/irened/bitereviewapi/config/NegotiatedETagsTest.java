@@ -0,0 +1,34 @@
+package com.irened.bitereviewapi.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NegotiatedETagsTest {
+
+    @Test
+    void eachFormatGetsItsOwnWeakTag() {
+        assertThat(NegotiatedETags.of("1-3", (String) null)).isEqualTo("W/\"1-3-json\"");
+        assertThat(NegotiatedETags.of("1-3", "application/cbor")).isEqualTo("W/\"1-3-cbor\"");
+        assertThat(NegotiatedETags.of("1-3", "application/x-jackson-smile"))
+                .isEqualTo("W/\"1-3-x-jackson-smile\"");
+    }
+
+    @Test
+    void wildcardsAndUnknownOrMalformedHeadersAnswerJson() {
+        assertThat(NegotiatedETags.negotiate("*/*")).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(NegotiatedETags.negotiate("application/*")).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(NegotiatedETags.negotiate("text/html, */*;q=0.8")).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(NegotiatedETags.negotiate("text/html")).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(NegotiatedETags.negotiate("not a media type")).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void negotiationFollowsQualityThenSpecificity() {
+        assertThat(NegotiatedETags.negotiate("application/json;q=0.5, application/cbor"))
+                .isEqualTo(MediaType.APPLICATION_CBOR);
+        assertThat(NegotiatedETags.negotiate("*/*, application/cbor")).isEqualTo(MediaType.APPLICATION_CBOR);
+        assertThat(NegotiatedETags.negotiate("application/cbor;q=0, */*")).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+}
@@ -0,0 +1,80 @@
+package com.irened.bitereviewapi.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class AllergyRankingTest {
+
+    private static final AllergyRanking PEANUT_AND_DAIRY = AllergyRanking.ALL.get(
+            1 << Allergy.PEANUT.ordinal() | 1 << Allergy.DAIRY.ordinal());
+
+    @Test
+    void fromNameParsesOverallSingleAndCombinedAllergies() {
+        assertThat(AllergyRanking.fromName("overall")).contains(AllergyRanking.OVERALL);
+        assertThat(AllergyRanking.fromName(" Overall ")).contains(AllergyRanking.OVERALL);
+        assertThat(AllergyRanking.fromName("EGG")).contains(AllergyRanking.of(Allergy.EGG));
+        assertThat(AllergyRanking.fromName("peanut, Dairy")).contains(PEANUT_AND_DAIRY);
+        assertThat(AllergyRanking.fromName("dairy,peanut,dairy")).contains(PEANUT_AND_DAIRY);
+        assertThat(AllergyRanking.fromName("peanut,egg,dairy").orElseThrow().allergies())
+                .containsExactly(Allergy.PEANUT, Allergy.EGG, Allergy.DAIRY);
+    }
+
+    @Test
+    void fromNameRejectsUnknownOrEmptyNames() {
+        assertThat(AllergyRanking.fromName(null)).isEmpty();
+        assertThat(AllergyRanking.fromName(" ")).isEmpty();
+        assertThat(AllergyRanking.fromName("gluten")).isEmpty();
+        assertThat(AllergyRanking.fromName("peanut,")).isEmpty();
+        assertThat(AllergyRanking.fromName("peanut,,egg")).isEmpty();
+        assertThat(AllergyRanking.fromName("overall,peanut")).isEmpty();
+    }
+
+    @Test
+    void masksOutsideTheAllergiesAreInvalid() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new AllergyRanking(-1));
+        assertThatIllegalArgumentException().isThrownBy(() -> new AllergyRanking(AllergyRanking.ALL.size()));
+    }
+
+    @Test
+    void forUserRanksByTheAllergiesTheUserFollows() {
+        User user = new User();
+        assertThat(AllergyRanking.forUser(user)).isEqualTo(AllergyRanking.OVERALL);
+        user.setInterestedInPeanutAllergies(true);
+        user.setInterestedInEggAllergies(false);
+        user.setInterestedInDairyAllergies(true);
+        assertThat(AllergyRanking.forUser(user)).isEqualTo(PEANUT_AND_DAIRY);
+    }
+
+    @Test
+    void scoreIsTheUnweightedMeanAndNeedsEveryAllergy() {
+        assertThat(PEANUT_AND_DAIRY.scoreOf(restaurant(1L, "02118", 5.0, 1.0, 2.0, 4.0))).isEqualTo(3.5);
+        assertThat(PEANUT_AND_DAIRY.scoreOf(restaurant(1L, "02118", 5.0, 1.0, null, 4.0))).isNull();
+        assertThat(AllergyRanking.OVERALL.scoreOf(restaurant(1L, "02118", null, null, null, 4.0))).isEqualTo(4.0);
+    }
+
+    @Test
+    void rankOrdersByScoreThenDistanceThenId() {
+        RestaurantSummary near = restaurant(4L, "02118", 4.0, null, 3.0, null);
+        RestaurantSummary farLowId = restaurant(2L, "02119", 3.0, null, 4.0, null);
+        RestaurantSummary farHighId = restaurant(3L, "02119", 5.0, null, 2.0, null);
+        RestaurantSummary best = restaurant(5L, "02120", 5.0, null, 4.0, null);
+        RestaurantSummary unscored = restaurant(1L, "02118", 5.0, 5.0, null, 5.0);
+        List<RestaurantSummary> restaurants = List.of(unscored, farHighId, near, best, farLowId);
+
+        assertThat(PEANUT_AND_DAIRY.rank(restaurants, Map.of("02118", 0.0, "02119", 1.5, "02120", 3.0)))
+                .containsExactly(best, near, farLowId, farHighId);
+        // Without distances, ties go to the lower ID
+        assertThat(PEANUT_AND_DAIRY.rank(restaurants)).containsExactly(best, farLowId, farHighId, near);
+        assertThat(AllergyRanking.OVERALL.rank(restaurants)).containsExactly(unscored);
+    }
+
+    private static RestaurantSummary restaurant(Long id, String zipCode, Double peanutScore, Double eggScore,
+                                                Double dairyScore, Double overallScore) {
+        return new RestaurantSummary(id, "Restaurant " + id, zipCode, peanutScore, eggScore, dairyScore, overallScore);
+    }
+}
@@ -0,0 +1,182 @@
+package com.irened.bitereviewapi.repository;
+
+import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.LeaderboardEntry;
+import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import com.irened.bitereviewapi.model.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks with H2's EXPLAIN that every repository query is answered from an index. Each query is
+ * run against a small seeded schema built by the Flyway migrations, the SQL Hibernate generated
+ * for it is captured, and its plan must name the expected index instead of a table scan.
+ */
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.irened.bitereviewapi.repository.RecordingStatementInspector")
+class RepositoryIndexUsageTest {
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+    @Autowired
+    private DiningReviewRepository diningReviewRepository;
+    @Autowired
+    private LeaderboardRepository leaderboardRepository;
+    @Autowired
+    private ScoreRecomputeOutboxRepository scoreRecomputeOutboxRepository;
+
+    @BeforeEach
+    void seed() {
+        // ANALYZE commits, so the data outlives the test's transaction and is seeded once
+        if (userRepository.count() > 0) {
+            return;
+        }
+        for (int i = 0; i < 30; i++) {
+            User user = new User();
+            user.setDisplayName("user_" + i);
+            user.setZipCode("0211" + i % 3);
+            entityManager.persist(user);
+        }
+        for (int i = 0; i < 60; i++) {
+            Restaurant restaurant = new Restaurant();
+            restaurant.setName("Restaurant " + i);
+            restaurant.setZipCode("0211" + i % 3);
+            restaurant.setPeanutScore(i % 5 + 1.0);
+            entityManager.persist(restaurant);
+            entityManager.persist(new LeaderboardEntry(restaurant.getZipCode(), 0, i / 3 + 1, restaurant.getId(), 3.0));
+        }
+        for (int i = 0; i < 600; i++) {
+            ReviewStatus status = ReviewStatus.values()[i % ReviewStatus.values().length];
+            entityManager.persist(new DiningReview(null, "user_" + i % 30, (long) (i % 60 + 1),
+                    i % 5 + 1, null, 3, "Review " + i, status, null));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        entityManager.createNativeQuery("ANALYZE").executeUpdate();
+    }
+
+    @Test
+    void userQueriesUseDisplayNameConstraint() {
+        assertIndexUsed(() -> userRepository.findByDisplayName("user_1"), "UK_USERS_DISPLAY_NAME");
+        assertIndexUsed(() -> userRepository.existsByDisplayName("user_1"), "UK_USERS_DISPLAY_NAME");
+        assertIndexUsed(() -> userRepository.findExistingDisplayNames(List.of("user_1", "user_2")),
+                "UK_USERS_DISPLAY_NAME");
+    }
+
+    @Test
+    void restaurantQueriesUseIndexes() {
+        assertIndexUsed(() -> restaurantRepository.findByNameAndZipCode("Restaurant 1", "02111"),
+                "UK_RESTAURANT_NAME_ZIP_CODE");
+        assertIndexUsed(() -> restaurantRepository.findByZipCodeIn(List.of("02110", "02111")),
+                "IDX_RESTAURANT_ZIP_CODE_");
+        assertIndexUsed(() -> restaurantRepository.findDistinctZipCodes(), "IDX_RESTAURANT_ZIP_CODE_");
+        assertIndexUsed(() -> restaurantRepository.findExistingIds(List.of(1L, 2L)), "PRIMARY_KEY");
+        assertIndexUsed(() -> restaurantRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(20)), "PRIMARY_KEY");
+        assertIndexUsed(() -> restaurantRepository.findAllBy(PageRequest.of(1, 20, Sort.by("id"))), "PRIMARY_KEY");
+        assertIndexUsed(() -> consume(restaurantRepository.streamAllByOrderByIdAsc()), "PRIMARY_KEY");
+    }
+
+    @Test
+    void reviewQueriesByRestaurantUseRestaurantStatusIndex() {
+        String index = "IDX_DINING_REVIEWS_RESTAURANT_ID_STATUS";
+        assertIndexUsed(() -> diningReviewRepository.findByRestaurantIdAndStatus(1L, ReviewStatus.APPROVED), index);
+        assertIndexUsed(() -> diningReviewRepository.findByRestaurantId(1L), index);
+        assertIndexUsed(() -> diningReviewRepository.findByRestaurantIdAndIdGreaterThanOrderByIdAsc(
+                1L, 0L, Limit.of(20)), index);
+        assertIndexUsed(() -> diningReviewRepository.findByRestaurantIdAndStatusAndIdGreaterThanOrderByIdAsc(
+                1L, ReviewStatus.APPROVED, 0L, Limit.of(20)), index);
+        assertIndexUsed(() -> consume(diningReviewRepository.streamByRestaurantIdOrderByIdAsc(1L)), index);
+        assertIndexUsed(() -> consume(diningReviewRepository.streamByRestaurantIdAndStatusOrderByIdAsc(
+                1L, ReviewStatus.APPROVED)), index);
+        assertIndexUsed(() -> diningReviewRepository.sumScoresByRestaurantIdAndStatus(1L, ReviewStatus.APPROVED),
+                index);
+    }
+
+    @Test
+    void reviewQueriesByStatusUseStatusIndex() {
+        String index = "IDX_DINING_REVIEWS_STATUS";
+        assertIndexUsed(() -> diningReviewRepository.findAllByStatus(ReviewStatus.PENDING), index);
+        assertIndexUsed(() -> diningReviewRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                ReviewStatus.PENDING, 0L, Limit.of(20)), index);
+        assertIndexUsed(() -> consume(diningReviewRepository.streamByStatusAndIdGreaterThanOrderByIdAsc(
+                ReviewStatus.PENDING, 0L)), index);
+        assertIndexUsed(() -> diningReviewRepository.sumScoresByStatusGroupByRestaurant(ReviewStatus.APPROVED),
+                index);
+    }
+
+    @Test
+    void otherReviewQueriesUseIndexes() {
+        assertIndexUsed(() -> diningReviewRepository.findCommentariesByDisplayNameAndRestaurantId("user_1", 2L),
+                "IDX_DINING_REVIEWS_DISPLAY_NAME_RESTAURANT_ID");
+        assertIndexUsed(() -> consume(diningReviewRepository.streamAllByOrderByIdAsc()), "PRIMARY_KEY");
+    }
+
+    @Test
+    void leaderboardQueriesUsePrimaryKey() {
+        assertIndexUsed(() -> leaderboardRepository.findRanked("02110", 0, 0, Limit.of(20)), "PRIMARY_KEY");
+        assertIndexUsed(() -> leaderboardRepository.findRankedIn(List.of("02110", "02111"), 0, 20), "PRIMARY_KEY");
+        assertIndexUsed(() -> leaderboardRepository.deleteByZipCodeIn(List.of("02110")), "PRIMARY_KEY");
+    }
+
+    @Test
+    void outboxQueriesUseIndexes() {
+        assertIndexUsed(() -> scoreRecomputeOutboxRepository.findOldestEnqueuedAt(),
+                "IDX_SCORE_RECOMPUTE_OUTBOX_ENQUEUED_AT");
+        assertIndexUsed(() -> scoreRecomputeOutboxRepository.findByRestaurantIdIn(List.of(1L, 2L)),
+                "IDX_SCORE_RECOMPUTE_OUTBOX_RESTAURANT_ID");
+        assertIndexUsed(() -> scoreRecomputeOutboxRepository.deleteByIds(List.of(1L, 2L)), "PRIMARY_KEY");
+    }
+
+    /**
+     * Run a repository query and check that the plan of every statement it issued against the
+     * query's tables uses the given index (or any index whose name starts with it).
+     */
+    private void assertIndexUsed(Runnable query, String index) {
+        RecordingStatementInspector.clear();
+        query.run();
+        List<String> statements = RecordingStatementInspector.statements();
+        assertThat(statements).as("statements issued").isNotEmpty();
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertThat(plan).as("plan of %s", sql)
+                    .contains("/* PUBLIC." + index)
+                    .doesNotContain("tableScan");
+        }
+    }
+
+    private String explain(String sql) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            // H2 plans a statement without its parameter values, so they are left unset
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+                 ResultSet plan = statement.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        });
+    }
+
+    private static void consume(Stream<?> stream) {
+        try (stream) {
+            stream.forEach(row -> { });
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.irened.bitereviewapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class BloomFilterTest {
+
+    @Test
+    void isSizedForTheExpectedKeysAndRate() {
+        BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+
+        // m = -n ln p / (ln 2)^2 is about 9.59 bits per key, and k = m / n ln 2 about 7 hash functions
+        assertThat(filter.bitSize()).isBetween(9_585_059L, 9_585_059L + 63);
+        assertThat(filter.bitSize() % 64).isZero();
+        assertThat(filter.hashFunctions()).isEqualTo(7);
+        assertThat(filter.insertions()).isZero();
+        assertThat(filter.expectedFalsePositiveRate()).isZero();
+    }
+
+    @Test
+    void neverMissesAnAddedKey() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        SplittableRandom random = new SplittableRandom(1);
+        long[] keys = random.longs(10_000).toArray();
+        for (long key : keys) {
+            filter.put(key);
+        }
+
+        for (long key : keys) {
+            assertThat(filter.mightContain(key)).isTrue();
+        }
+        assertThat(filter.insertions()).isEqualTo(10_000);
+    }
+
+    @Test
+    void falsePositivesStayNearTheTargetRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        SplittableRandom random = new SplittableRandom(2);
+        random.longs(10_000).forEach(filter::put);
+
+        long falsePositives = random.longs(100_000).filter(filter::mightContain).count();
+
+        assertThat(falsePositives / 100_000.0).isCloseTo(0.01, within(0.005));
+        assertThat(filter.expectedFalsePositiveRate()).isCloseTo(0.01, within(0.003));
+    }
+
+    @Test
+    void tinyFiltersStillWork() {
+        BloomFilter filter = new BloomFilter(0, 0.5);
+        filter.put(42);
+
+        assertThat(filter.bitSize()).isEqualTo(64);
+        assertThat(filter.hashFunctions()).isPositive();
+        assertThat(filter.mightContain(42)).isTrue();
+    }
+}
@@ -0,0 +1,148 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.RestaurantSummary;
+import com.irened.bitereviewapi.repository.RestaurantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RestaurantNameIndexTest {
+
+    private static final String[] WORDS = {"joe", "joes", "pizza", "pizzeria", "cafe", "taco", "tacos", "thai",
+            "house", "garden", "golden", "dragon", "bistro", "grill", "noodle", "bar"};
+
+    private RestaurantNameIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        index = new RestaurantNameIndex(mock(RestaurantRepository.class), mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void normalizeDropsCaseAccentsAndApostrophesAndCollapsesPunctuation() {
+        assertThat(RestaurantNameIndex.normalize("Joe's  CAFÉ")).isEqualTo("joes cafe");
+        assertThat(RestaurantNameIndex.normalize("Joe’s Café")).isEqualTo("joes cafe");
+        assertThat(RestaurantNameIndex.normalize("  Taco-Bell!! ")).isEqualTo("taco bell");
+        assertThat(RestaurantNameIndex.normalize("Crème Brûlée #2")).isEqualTo("creme brulee 2");
+        assertThat(RestaurantNameIndex.normalize("...")).isEmpty();
+        assertThat(RestaurantNameIndex.normalize(null)).isEmpty();
+    }
+
+    @Test
+    void trigramsArePaddedDistinctAndSorted() {
+        assertThat(RestaurantNameIndex.trigrams("ab", false)).containsExactly(
+                trigram("  a"), trigram(" ab"), trigram("ab "));
+        // The last word of a prefix query is not padded at the end
+        assertThat(RestaurantNameIndex.trigrams("ab", true)).containsExactly(trigram("  a"), trigram(" ab"));
+        // "bar bar" repeats every trigram of "bar"
+        assertThat(RestaurantNameIndex.trigrams("bar bar", false))
+                .containsExactly(RestaurantNameIndex.trigrams("bar", false));
+        assertThat(RestaurantNameIndex.trigrams("", false)).isEmpty();
+
+        long[] trigrams = RestaurantNameIndex.trigrams("golden dragon garden", false);
+        assertThat(trigrams).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void searchFindsPrefixesAndMisspellings() {
+        put(1L, "Joe's Pizza", "02118");
+        put(2L, "Golden Dragon", "02118");
+        put(3L, "Pizzeria Regina", "02113");
+        put(4L, "Joes Pizza Express", "02118");
+
+        assertThat(ids(index.search("joes piz", null, null, null, 1.0, 10))).containsExactly(1L, 4L);
+        assertThat(ids(index.search("Golden Dargon", null, null, null, 0.6, 10))).containsExactly(2L);
+        assertThat(ids(index.search("pizz", "02113", null, null, 1.0, 10))).containsExactly(3L);
+        assertThat(index.search("sushi", null, null, null, 0.6, 10)).isEmpty();
+        assertThat(index.findSimilar("JOE’S PIZZA!", "02118", 1.0)).map(RestaurantSummary::id).contains(1L);
+        assertThat(index.findSimilar("Joe's Pizza", "02113", 0.5)).isEmpty();
+    }
+
+    @Test
+    void renamedRestaurantsOnlyMatchTheirNewName() {
+        put(1L, "Golden Dragon", "02118");
+        put(1L, "Thai Garden", "02118");
+
+        assertThat(index.search("golden", null, null, null, 1.0, 10)).isEmpty();
+        assertThat(ids(index.search("thai", null, null, null, 1.0, 10))).containsExactly(1L);
+    }
+
+    @Test
+    void mergeMatchesABruteForceCountOfSharedTrigrams() {
+        Random random = new Random(7);
+        Map<Long, long[]> trigramsById = new HashMap<>();
+        for (long id = 1; id <= 400; id++) {
+            String name = randomName(random);
+            put(id, name, "02118");
+            trigramsById.put(id, RestaurantNameIndex.trigrams(RestaurantNameIndex.normalize(name), false));
+        }
+
+        for (int i = 0; i < 200; i++) {
+            String query = randomName(random);
+            double minSimilarity = random.nextInt(11) / 10.0;
+            long[] queryTrigrams = RestaurantNameIndex.trigrams(RestaurantNameIndex.normalize(query), true);
+            int minShared = Math.max(1, (int) Math.ceil(minSimilarity * queryTrigrams.length));
+
+            List<Long> expected = trigramsById.entrySet().stream()
+                    .filter(entry -> shared(queryTrigrams, entry.getValue()) >= minShared)
+                    .sorted(Comparator.comparingDouble((Map.Entry<Long, long[]> entry) ->
+                                    -(double) shared(queryTrigrams, entry.getValue()) / queryTrigrams.length)
+                            .thenComparingDouble(entry -> -jaccard(queryTrigrams, entry.getValue()))
+                            .thenComparing(Map.Entry::getKey))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            assertThat(ids(index.search(query, null, null, null, minSimilarity, Integer.MAX_VALUE)))
+                    .as("query \"%s\" at %s", query, minSimilarity)
+                    .isEqualTo(expected);
+        }
+    }
+
+    private void put(Long id, String name, String zipCode) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        restaurant.setName(name);
+        restaurant.setZipCode(zipCode);
+        index.onRestaurantUpdated(new RestaurantUpdatedEvent(restaurant));
+    }
+
+    private static String randomName(Random random) {
+        StringBuilder name = new StringBuilder();
+        for (int words = random.nextInt(3) + 1; words > 0; words--) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (random.nextInt(4) == 0) {
+                int at = random.nextInt(word.length());
+                word = word.substring(0, at) + (char) ('a' + random.nextInt(26)) + word.substring(at + 1);
+            }
+            name.append(name.isEmpty() ? "" : " ").append(word);
+        }
+        return name.toString();
+    }
+
+    private static int shared(long[] query, long[] name) {
+        return (int) Arrays.stream(query).filter(trigram -> Arrays.binarySearch(name, trigram) >= 0).count();
+    }
+
+    private static double jaccard(long[] query, long[] name) {
+        int shared = shared(query, name);
+        return (double) shared / (query.length + name.length - shared);
+    }
+
+    private static long trigram(String characters) {
+        return (long) characters.charAt(0) << 32 | (long) characters.charAt(1) << 16 | characters.charAt(2);
+    }
+
+    private static List<Long> ids(List<RestaurantSummary> restaurants) {
+        return restaurants.stream().map(RestaurantSummary::id).toList();
+    }
+}
@@ -0,0 +1,158 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.model.Allergy;
+import com.irened.bitereviewapi.model.AllergyRanking;
+import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.RestaurantSummary;
+import com.irened.bitereviewapi.repository.RestaurantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RestaurantSearchIndexTest {
+
+    private RestaurantRepository restaurantRepository;
+    private RestaurantSearchIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        restaurantRepository = mock(RestaurantRepository.class);
+        index = new RestaurantSearchIndex(restaurantRepository, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void searchRanksByScoreThenIdAndSkipsUnscoredRestaurants() {
+        put(1L, "02118", 3.0, 4.0);
+        put(2L, "02118", 5.0, null);
+        put(3L, "02118", null, 2.0);
+        put(4L, "02118", 3.0, 1.0);
+        put(5L, "02119", 4.5, 4.5);
+
+        assertThat(ids(index.search("02118", AllergyRanking.of(Allergy.PEANUT), 0, null))).containsExactly(2L, 1L, 4L);
+        assertThat(ids(index.search("02118", AllergyRanking.of(Allergy.EGG), 0, null))).containsExactly(1L, 3L, 4L);
+        assertThat(ids(index.search("02118", AllergyRanking.fromName("peanut,egg").orElseThrow(), 0, null)))
+                .containsExactly(1L, 4L);
+        assertThat(index.search("02120", AllergyRanking.OVERALL, 0, null)).isEmpty();
+    }
+
+    @Test
+    void searchPagesWithOffsetAndLimit() {
+        for (long id = 1; id <= 10; id++) {
+            put(id, "02118", (double) id, null);
+        }
+        AllergyRanking peanut = AllergyRanking.of(Allergy.PEANUT);
+
+        assertThat(ids(index.search("02118", peanut, 0, 3))).containsExactly(10L, 9L, 8L);
+        assertThat(ids(index.search("02118", peanut, 8, 5))).containsExactly(2L, 1L);
+        assertThat(index.search("02118", peanut, 10, 5)).isEmpty();
+        assertThat(index.search("02118", peanut, 0, 0)).isEmpty();
+    }
+
+    @Test
+    void updateReplacesTheRestaurantAndOnlyItsZipCodesGeneration() {
+        put(1L, "02118", 2.0, null);
+        put(2L, "02118", 3.0, null);
+        put(3L, "02119", 4.0, null);
+        RestaurantSearchIndex.Generation before = index.generation("02118");
+        RestaurantSearchIndex.Generation other = index.generation("02119");
+
+        put(1L, "02118", 5.0, null);
+
+        assertThat(ids(index.search("02118", AllergyRanking.of(Allergy.PEANUT), 0, null))).containsExactly(1L, 2L);
+        assertThat(index.search("02118", AllergyRanking.of(Allergy.PEANUT), 0, 1).get(0).peanutScore()).isEqualTo(5.0);
+        assertThat(index.generation("02118").tag()).isNotEqualTo(before.tag());
+        assertThat(index.generation("02119").tag()).isEqualTo(other.tag());
+        assertThat(index.generation(List.of("02118", "02119")).tag()).isEqualTo(index.generation("02118").tag());
+    }
+
+    @Test
+    void searchNearbyMergesZipCodesLikeRankingThemTogether() {
+        put(1L, "02118", 4.0, 3.0);
+        put(2L, "02116", 4.0, 5.0);
+        put(3L, "02215", 4.0, null);
+        put(4L, "02118", 2.0, 2.0);
+        put(5L, "02116", 5.0, 1.0);
+        put(6L, "02215", null, 4.0);
+        put(7L, "02215", 4.0, 3.0);
+        put(8L, "10001", 5.0, 5.0);
+        Map<String, Double> distances = new LinkedHashMap<>();
+        distances.put("02118", 0.0);
+        distances.put("02116", 0.8);
+        distances.put("02215", 1.6);
+        distances.put("99999", 2.0);
+
+        // Every restaurant in the searched zip codes, whatever its scores
+        List<RestaurantSummary> nearby = new ArrayList<>(index.search("02118", AllergyRanking.OVERALL, 0, null));
+        nearby.addAll(index.search("02116", AllergyRanking.OVERALL, 0, null));
+        nearby.addAll(index.search("02215", AllergyRanking.OVERALL, 0, null));
+        for (AllergyRanking ranking : AllergyRanking.ALL) {
+            List<RestaurantSummary> expected = ranking.rank(nearby, distances);
+            assertThat(index.searchNearby(distances, ranking, 0, null)).as("ranking %s", ranking).isEqualTo(expected);
+            assertThat(index.searchNearby(distances, ranking, 1, 2)).as("ranking %s", ranking)
+                    .isEqualTo(expected.subList(Math.min(1, expected.size()), Math.min(3, expected.size())));
+        }
+
+        // Equal peanut scores go to the nearer zip code, then the lower ID
+        assertThat(ids(index.searchNearby(distances, AllergyRanking.of(Allergy.PEANUT), 0, null)))
+                .containsExactly(5L, 1L, 2L, 3L, 7L, 4L);
+        assertThat(index.searchNearby(distances, AllergyRanking.of(Allergy.PEANUT), 6, 3)).isEmpty();
+        assertThat(index.searchNearby(Map.of("99999", 0.0), AllergyRanking.OVERALL, 0, null)).isEmpty();
+    }
+
+    @Test
+    void updateCommittedDuringRebuildIsAppliedAfterIt() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch finishReading = new CountDownLatch(1);
+        when(restaurantRepository.streamAllByOrderByIdAsc()).thenAnswer(invocation -> {
+            reading.countDown();
+            finishReading.await();
+            return Stream.of(RestaurantSummary.from(restaurant(1L, "02118", 2.0, null)));
+        });
+
+        Thread rebuild = new Thread(index::rebuild);
+        rebuild.start();
+        reading.await();
+        Thread update = new Thread(() -> put(1L, "02118", 5.0, null));
+        update.start();
+        while (update.getState() != Thread.State.WAITING && update.isAlive()) {
+            Thread.onSpinWait();
+        }
+        finishReading.countDown();
+        rebuild.join();
+        update.join();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.search("02118", AllergyRanking.of(Allergy.PEANUT), 0, null))
+                .extracting(RestaurantSummary::peanutScore).containsExactly(5.0);
+    }
+
+    private void put(Long id, String zipCode, Double peanutScore, Double eggScore) {
+        index.onRestaurantUpdated(new RestaurantUpdatedEvent(restaurant(id, zipCode, peanutScore, eggScore)));
+    }
+
+    private static Restaurant restaurant(Long id, String zipCode, Double peanutScore, Double eggScore) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        restaurant.setName("Restaurant " + id);
+        restaurant.setZipCode(zipCode);
+        restaurant.setPeanutScore(peanutScore);
+        restaurant.setEggScore(eggScore);
+        restaurant.setOverallScore(peanutScore != null ? peanutScore : eggScore);
+        return restaurant;
+    }
+
+    private static List<Long> ids(List<RestaurantSummary> restaurants) {
+        return restaurants.stream().map(RestaurantSummary::id).toList();
+    }
+}
@@ -0,0 +1,122 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.config.ReviewDedupProperties;
+import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import com.irened.bitereviewapi.repository.DiningReviewRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReviewDuplicateDetectorTest {
+
+    private static final String COMMENTARY = "The staff checked every dish for peanuts and walked us through the menu";
+
+    private final DiningReviewRepository repository = mock(DiningReviewRepository.class);
+    private final ReviewSubmissionQueue queue = mock(ReviewSubmissionQueue.class);
+    private final List<DiningReview> stored = new ArrayList<>();
+    private final List<DiningReview> buffered = new ArrayList<>();
+    private ReviewDuplicateDetector detector;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void createDetector() {
+        when(repository.streamAllByOrderByIdAsc()).thenReturn(Stream.empty());
+        when(repository.findCommentariesByDisplayNameAndRestaurantId(anyString(), anyLong())).thenAnswer(invocation ->
+                stored.stream()
+                        .filter(review -> review.getDisplayName().equals(invocation.getArgument(0))
+                                && review.getRestaurantId().equals(invocation.getArgument(1)))
+                        .map(DiningReview::getCommentary)
+                        .toList());
+        when(queue.anyBuffered(any())).thenAnswer(invocation ->
+                buffered.stream().anyMatch((Predicate<DiningReview>) invocation.getArgument(0)));
+        detector = new ReviewDuplicateDetector(repository, queue, new ReviewDedupProperties(),
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+        detector.rebuild();
+    }
+
+    @Test
+    void reviewsAreOnlyRememberedOnceSaved() {
+        DiningReview review = review(1L, COMMENTARY);
+        assertThat(detector.check(review)).isEmpty();
+        // Accepted, but rolled back or dropped before it was saved: a resubmission is still accepted
+        assertThat(detector.check(review(1L, COMMENTARY))).isEmpty();
+        assertThat(detector.check(review(2L, COMMENTARY))).isEmpty();
+
+        save(review);
+
+        assertThat(detector.check(review(1L, COMMENTARY.toUpperCase() + "!"))).contains("Duplicate review.");
+        assertThat(detector.check(review(2L, COMMENTARY)))
+                .contains("Review is too similar to one already submitted by this user.");
+        assertThat(detector.filterInsertions()).isEqualTo(1);
+    }
+
+    @Test
+    void reviewsWaitingToBeSavedAreComparedDirectly() {
+        buffered.add(review(1L, COMMENTARY));
+
+        assertThat(detector.check(review(1L, COMMENTARY))).contains("Duplicate review.");
+        assertThat(detector.check(review(2L, COMMENTARY)))
+                .contains("Review is too similar to one already submitted by this user.");
+        assertThat(detector.check(review(3L, "Nothing alike: the dairy menu was short but clearly marked"))).isEmpty();
+
+        buffered.clear();
+        List<DiningReview> unsaved = List.of(review(1L, COMMENTARY));
+        assertThat(detector.check(review(1L, COMMENTARY), unsaved)).contains("Duplicate review.");
+        assertThat(detector.check(review(2L, COMMENTARY), unsaved))
+                .contains("Review is too similar to one already submitted by this user.");
+        DiningReview otherUser = review(1L, COMMENTARY);
+        otherUser.setDisplayName("someone_else");
+        assertThat(detector.check(otherUser, unsaved)).isEmpty();
+    }
+
+    @Test
+    void reviewsWithoutCommentaryAreNeverDuplicates() {
+        save(review(1L, null));
+        save(review(1L, ""));
+
+        assertThat(detector.check(review(1L, null))).isEmpty();
+        assertThat(detector.check(review(1L, " ?! "))).isEmpty();
+        assertThat(detector.check(review(1L, null), List.of(review(1L, null)))).isEmpty();
+        assertThat(detector.filterInsertions()).isZero();
+        assertThat(detector.checkCounts().values()).containsOnly(0L);
+    }
+
+    @Test
+    void simHashKeepsSimilarCommentariesCloseAndUnrelatedOnesFar() {
+        long original = detector.simHash(RestaurantNameIndex.normalize(COMMENTARY));
+        long edited = detector.simHash(RestaurantNameIndex.normalize(
+                COMMENTARY.replace("walked us through", "walked me through")));
+        long unrelated = detector.simHash(RestaurantNameIndex.normalize(
+                "Long wait for a table and the dessert menu had no allergy labels at all"));
+
+        assertThat(detector.simHash(RestaurantNameIndex.normalize(COMMENTARY.toUpperCase()))).isEqualTo(original);
+        assertThat(Long.bitCount(original ^ edited)).isLessThan(Long.bitCount(original ^ unrelated));
+        assertThat(Long.bitCount(original ^ unrelated)).isGreaterThan(new ReviewDedupProperties().getNearDuplicateMaxDistance());
+        assertThat(detector.simHash("four words too short")).isZero();
+        assertThat(detector.simHash("")).isZero();
+        assertThat(original).isNotZero();
+    }
+
+    private void save(DiningReview review) {
+        stored.add(review);
+        detector.onReviewsSaved(new ReviewsSavedEvent(List.of(review)));
+    }
+
+    private static DiningReview review(Long restaurantId, String commentary) {
+        return new DiningReview(null, "jane", restaurantId, 4, null, null, commentary, ReviewStatus.PENDING, null);
+    }
+}
@@ -0,0 +1,123 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.config.ReviewAdmissionProperties;
+import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import com.irened.bitereviewapi.repository.DiningReviewRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReviewSubmissionQueueTest {
+
+    private static final long BAD_RESTAURANT_ID = 2L;
+
+    private final DiningReviewRepository repository = mock(DiningReviewRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Long> written = new ArrayList<>();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private ReviewSubmissionQueue queue;
+
+    @BeforeEach
+    void createQueue() {
+        ReviewAdmissionProperties properties = new ReviewAdmissionProperties();
+        properties.setPerUserRate(1000);
+        properties.setWriteRetryBackoff(Duration.ofMillis(10));
+        queue = new ReviewSubmissionQueue(repository, properties, eventPublisher, mock(PlatformTransactionManager.class),
+                meterRegistry);
+    }
+
+    @AfterEach
+    void stopQueue() throws InterruptedException {
+        queue.stop();
+    }
+
+    @Test
+    void transientFailuresAreHeldAndConstraintViolationsDropped() throws InterruptedException {
+        // Locked once, then unreachable twice, then only the review of the bad restaurant fails, for good
+        when(repository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<DiningReview> reviews = invocation.getArgument(0);
+            switch (attempts.incrementAndGet()) {
+                case 1 -> throw new CannotAcquireLockException("Lock timeout");
+                case 2 -> throw new DataAccessResourceFailureException("Connection refused");
+                case 3 -> throw new CannotCreateTransactionException("Connection refused");
+                default -> {
+                    List<Long> restaurantIds = new ArrayList<>();
+                    reviews.forEach(review -> restaurantIds.add(review.getRestaurantId()));
+                    if (restaurantIds.contains(BAD_RESTAURANT_ID)) {
+                        throw new DataIntegrityViolationException("No such restaurant");
+                    }
+                    synchronized (written) {
+                        written.addAll(restaurantIds);
+                    }
+                    return reviews;
+                }
+            }
+        });
+        for (long restaurantId = 1; restaurantId <= 3; restaurantId++) {
+            assertThat(queue.submit(review(restaurantId))).isEmpty();
+        }
+
+        queue.start();
+        awaitWritten(2);
+
+        synchronized (written) {
+            assertThat(written).containsExactly(1L, 3L);
+        }
+        assertThat(meterRegistry.counter("bitereview.reviews.buffer.retried").count()).isEqualTo(9);
+        assertThat(meterRegistry.counter("bitereview.reviews.buffer.failed").count()).isEqualTo(1);
+        assertThat(queue.anyBuffered(review -> true)).isFalse();
+        // Only the reviews actually saved are announced to the duplicate detector
+        ArgumentCaptor<ReviewsSavedEvent> saved = ArgumentCaptor.forClass(ReviewsSavedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(saved.capture());
+        assertThat(saved.getAllValues()).flatMap(ReviewsSavedEvent::reviews)
+                .extracting(DiningReview::getRestaurantId).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void onlyFailuresThatMayPassAreTransient() {
+        assertThat(ReviewSubmissionQueue.isTransient(new CannotAcquireLockException("Lock timeout"))).isTrue();
+        assertThat(ReviewSubmissionQueue.isTransient(new DataAccessResourceFailureException("Down"))).isTrue();
+        assertThat(ReviewSubmissionQueue.isTransient(new CannotCreateTransactionException("Down"))).isTrue();
+        assertThat(ReviewSubmissionQueue.isTransient(new DataIntegrityViolationException("Duplicate"))).isFalse();
+        assertThat(ReviewSubmissionQueue.isTransient(new IllegalStateException("Bug"))).isFalse();
+    }
+
+    private void awaitWritten(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            synchronized (written) {
+                if (written.size() >= count && !queue.anyBuffered(review -> true)) {
+                    return;
+                }
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static DiningReview review(long restaurantId) {
+        return new DiningReview(null, "user_" + restaurantId, restaurantId, 4, null, null, "Fine", ReviewStatus.PENDING, null);
+    }
+}
@@ -0,0 +1,215 @@
+package com.irened.bitereviewapi.service;
+
+import com.irened.bitereviewapi.model.AdminReviewAction;
+import com.irened.bitereviewapi.model.AdminReviewBatchAction;
+import com.irened.bitereviewapi.model.AdminReviewDecision;
+import com.irened.bitereviewapi.model.DiningReview;
+import com.irened.bitereviewapi.model.Restaurant;
+import com.irened.bitereviewapi.model.ReviewStatus;
+import com.irened.bitereviewapi.model.User;
+import com.irened.bitereviewapi.repository.DiningReviewRepository;
+import com.irened.bitereviewapi.repository.RestaurantRepository;
+import com.irened.bitereviewapi.repository.ScoreRecomputeOutboxRepository;
+import com.irened.bitereviewapi.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Approves and rejects reviews from many threads at once, through single PUTs and batch moderation,
+ * while restaurants are occasionally rebuilt, and checks that once the score recompute queue is
+ * flushed every restaurant's totals and averages match a from-scratch SUM/COUNT of its approved reviews.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:score-recompute-stress;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "bitereview.scores.recompute.batch-size=4",
+        "bitereview.scores.recompute.interval=5ms"
+})
+class ScoreRecomputeConcurrencyTest {
+
+    private static final int RESTAURANTS = 12;
+    private static final int USERS = 10;
+    private static final int REVIEWS = 600;
+    private static final int THREADS = 16;
+    private static final int BATCH_SIZE = 8;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+    @Autowired
+    private DiningReviewRepository diningReviewRepository;
+    @Autowired
+    private ScoreRecomputeOutboxRepository outboxRepository;
+    @Autowired
+    private ScoreRecomputeQueue scoreRecomputeQueue;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void parallelApprovalsLeaveExactScores() throws Exception {
+        Random random = new Random(42);
+        List<Long> restaurantIds = seedRestaurants();
+        List<Long> reviewIds = seedReviews(restaurantIds, random);
+
+        // Every review is decided one to three times, in random order, so some leave the approved state again
+        List<AdminReviewDecision> decisions = new ArrayList<>();
+        for (Long reviewId : reviewIds) {
+            for (int i = random.nextInt(3); i >= 0; i--) {
+                AdminReviewDecision decision = new AdminReviewDecision();
+                decision.setReviewId(reviewId);
+                decision.setAccepted(random.nextInt(4) > 0);
+                decisions.add(decision);
+            }
+        }
+        Collections.shuffle(decisions, random);
+
+        List<Runnable> requests = new ArrayList<>();
+        for (int i = 0; i < decisions.size(); ) {
+            if (random.nextBoolean()) {
+                AdminReviewDecision decision = decisions.get(i++);
+                requests.add(() -> putDecision(decision));
+            } else {
+                List<AdminReviewDecision> batch = decisions.subList(i, Math.min(i + BATCH_SIZE, decisions.size()));
+                i += batch.size();
+                requests.add(() -> postBatch(batch));
+            }
+            if (random.nextInt(40) == 0) {
+                Long restaurantId = restaurantIds.get(random.nextInt(restaurantIds.size()));
+                requests.add(() -> rebuild(restaurantId));
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            requests.forEach(request -> futures.add(executor.submit(request)));
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(scoreRecomputeQueue.flush(Duration.ofSeconds(30))).isTrue();
+        assertThat(outboxRepository.count()).isZero();
+        assertThat(countApproved()).isPositive();
+
+        Map<Long, long[]> expected = approvedTotals();
+        for (Restaurant restaurant : restaurantRepository.findAllById(restaurantIds)) {
+            long[] totals = expected.getOrDefault(restaurant.getId(), new long[6]);
+            assertThat(new long[]{
+                    restaurant.getPeanutScoreSum(), restaurant.getPeanutScoreCount(),
+                    restaurant.getEggScoreSum(), restaurant.getEggScoreCount(),
+                    restaurant.getDairyScoreSum(), restaurant.getDairyScoreCount()
+            }).as("totals of restaurant %d", restaurant.getId()).containsExactly(totals);
+            assertThat(restaurant.getPeanutScore()).isEqualTo(average(totals[0], totals[1]));
+            assertThat(restaurant.getEggScore()).isEqualTo(average(totals[2], totals[3]));
+            assertThat(restaurant.getDairyScore()).isEqualTo(average(totals[4], totals[5]));
+        }
+    }
+
+    private List<Long> seedRestaurants() {
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setDisplayName("stress_user_" + i);
+            user.setZipCode("02110");
+            userRepository.save(user);
+        }
+        List<Long> restaurantIds = new ArrayList<>();
+        for (int i = 0; i < RESTAURANTS; i++) {
+            Restaurant restaurant = new Restaurant();
+            restaurant.setName("Stress Restaurant " + i);
+            restaurant.setZipCode("02110");
+            restaurantIds.add(restaurantRepository.save(restaurant).getId());
+        }
+        return restaurantIds;
+    }
+
+    private List<Long> seedReviews(List<Long> restaurantIds, Random random) {
+        List<DiningReview> reviews = new ArrayList<>();
+        for (int i = 0; i < REVIEWS; i++) {
+            reviews.add(new DiningReview(null, "stress_user_" + i % USERS,
+                    restaurantIds.get(random.nextInt(restaurantIds.size())),
+                    score(random), score(random), score(random), "Stress review " + i, ReviewStatus.PENDING, null));
+        }
+        List<Long> reviewIds = new ArrayList<>();
+        diningReviewRepository.saveAll(reviews).forEach(review -> reviewIds.add(review.getId()));
+        return reviewIds;
+    }
+
+    // A score from 1 to 5, or none a quarter of the time
+    private static Integer score(Random random) {
+        return random.nextInt(4) == 0 ? null : random.nextInt(5) + 1;
+    }
+
+    private void putDecision(AdminReviewDecision decision) {
+        AdminReviewAction action = new AdminReviewAction();
+        action.setAccepted(decision.getAccepted());
+        ResponseEntity<String> response = restTemplate.exchange("/api/admin/reviews/{id}", HttpMethod.PUT,
+                new HttpEntity<>(action), String.class, decision.getReviewId());
+        assertThat(response.getStatusCode()).isIn(HttpStatus.OK, HttpStatus.CONFLICT);
+    }
+
+    private void postBatch(List<AdminReviewDecision> decisions) {
+        AdminReviewBatchAction action = new AdminReviewBatchAction();
+        action.setDecisions(decisions);
+        ResponseEntity<String> response =
+                restTemplate.postForEntity("/api/admin/reviews/batch", action, String.class);
+        assertThat(response.getStatusCode()).isIn(HttpStatus.OK, HttpStatus.CONFLICT);
+    }
+
+    private void rebuild(Long restaurantId) {
+        ResponseEntity<String> response = restTemplate.postForEntity(
+                "/api/admin/restaurants/{id}/scores/rebuild", null, String.class, restaurantId);
+        assertThat(response.getStatusCode()).isIn(HttpStatus.OK, HttpStatus.CONFLICT);
+    }
+
+    private long countApproved() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM dining_reviews WHERE status = 'APPROVED'", Long.class);
+    }
+
+    // Restaurant ID -> peanut, egg and dairy sums and counts, summed directly from the approved reviews
+    private Map<Long, long[]> approvedTotals() {
+        Map<Long, long[]> totals = new HashMap<>();
+        jdbcTemplate.query("SELECT restaurant_id, "
+                + "COALESCE(SUM(peanut_score), 0), COUNT(peanut_score), "
+                + "COALESCE(SUM(egg_score), 0), COUNT(egg_score), "
+                + "COALESCE(SUM(dairy_score), 0), COUNT(dairy_score) "
+                + "FROM dining_reviews WHERE status = 'APPROVED' GROUP BY restaurant_id", row -> {
+            long[] values = new long[6];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = row.getLong(i + 2);
+            }
+            totals.put(row.getLong(1), values);
+        });
+        return totals;
+    }
+
+    private static Double average(long sum, long count) {
+        return count == 0 ? null : Math.round((double) sum / count * 100) / 100.0;
+    }
+}
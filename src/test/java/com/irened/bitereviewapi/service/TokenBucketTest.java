@@ -0,0 +1,91 @@
+package com.irened.bitereviewapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void startsFullAndRefusesBeyondTheBurst() {
+        TokenBucket bucket = new TokenBucket(2, 3, 0);
+
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        // The next token comes back after one interval of half a second
+        assertThat(bucket.tryAcquire(0)).isEqualTo(SECOND / 2);
+        assertThat(bucket.tryAcquire(SECOND / 4)).isEqualTo(SECOND / 4);
+        assertThat(bucket.tryAcquire(SECOND / 2)).isZero();
+        assertThat(bucket.tryAcquire(SECOND / 2)).isEqualTo(SECOND / 2);
+    }
+
+    @Test
+    void refillsAtTheRateButNeverBeyondTheBurst() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(0)).isZero();
+        }
+
+        // Idle for a minute: full again, but with no more than five tokens
+        long later = 60 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(later)).isZero();
+        }
+        assertThat(bucket.tryAcquire(later)).isEqualTo(SECOND / 10);
+    }
+
+    @Test
+    void refundReturnsAnUnusedToken() {
+        TokenBucket bucket = new TokenBucket(1, 1, 0);
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isEqualTo(SECOND);
+
+        bucket.refund();
+
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isEqualTo(SECOND);
+    }
+
+    @Test
+    void concurrentAcquisitionsTakeExactlyTheBurst() throws Exception {
+        TokenBucket bucket = new TokenBucket(1, 1000, 0);
+        AtomicInteger taken = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> {
+                    for (int j = 0; j < 500; j++) {
+                        if (bucket.tryAcquire(0) == 0) {
+                            taken.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(taken).hasValue(1000);
+    }
+
+    @Test
+    void rateAndBurstMustBePositive() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new TokenBucket(0, 1, 0));
+        assertThatIllegalArgumentException().isThrownBy(() -> new TokenBucket(Double.NaN, 1, 0));
+        assertThatIllegalArgumentException().isThrownBy(() -> new TokenBucket(1, 0, 0));
+    }
+}
@@ -0,0 +1,87 @@
+package com.irened.bitereviewapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ZipCodeGridTest {
+
+    @Test
+    void withinFindsZipCodesInsideTheRadiusNearestFirst() {
+        ZipCodeGrid grid = grid(
+                "02118", 42.3383, -71.0707,
+                "02116", 42.3497, -71.0770,
+                "02215", 42.3471, -71.1024,
+                "02138", 42.3800, -71.1350,
+                "10001", 40.7506, -73.9972);
+
+        Map<String, Double> found = grid.within("02118", 3);
+
+        assertThat(found.keySet()).containsExactly("02118", "02116", "02215");
+        assertThat(found.get("02118")).isZero();
+        assertThat(found.get("02116")).isEqualTo(
+                ZipCodeGrid.distanceMiles(42.3383, -71.0707, 42.3497, -71.0770));
+        assertThat(grid.within("02118", 300)).containsKey("10001");
+    }
+
+    @Test
+    void withinIsEmptyForAZipCodeWithoutACentroid() {
+        ZipCodeGrid grid = grid("02118", 42.3383, -71.0707);
+
+        assertThat(grid.within("99999", 50)).isEmpty();
+    }
+
+    @Test
+    void withinReachesAcrossTheAntimeridian() {
+        ZipCodeGrid grid = grid(
+                "east", 10.0, 179.99,
+                "west", 10.0, -179.99,
+                "far", 10.0, -179.0);
+
+        Map<String, Double> found = grid.within("east", 5);
+
+        assertThat(found.keySet()).containsExactly("east", "west");
+        assertThat(found.get("west")).isCloseTo(1.36, within(0.01));
+        assertThat(grid.within("west", 5).keySet()).containsExactly("west", "east");
+    }
+
+    @Test
+    void withinNearAPoleSearchesEveryLongitude() {
+        ZipCodeGrid grid = grid(
+                "pole", 89.99, 0.0,
+                "opposite", 89.99, 180.0,
+                "side", 89.99, -90.0,
+                "south", 89.0, 0.0);
+
+        Map<String, Double> found = grid.within("pole", 5);
+
+        assertThat(found.keySet()).containsExactlyInAnyOrder("pole", "opposite", "side");
+        assertThat(found.get("opposite")).isCloseTo(1.38, within(0.01));
+        assertThat(grid.within("pole", 70)).containsKey("south");
+    }
+
+    @Test
+    void distanceMilesMatchesAKnownDistance() {
+        // Boston to New York is about 190 miles as the crow flies
+        assertThat(ZipCodeGrid.distanceMiles(42.3601, -71.0589, 40.7128, -74.0060)).isCloseTo(190, within(2.0));
+        assertThat(ZipCodeGrid.distanceMiles(0, 179.5, 0, -179.5)).isCloseTo(69.1, within(0.1));
+    }
+
+    // Grid over (zip code, latitude, longitude) triples
+    private static ZipCodeGrid grid(Object... points) {
+        int size = points.length / 3;
+        String[] zipCodes = new String[size];
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        for (int i = 0; i < size; i++) {
+            zipCodes[i] = (String) points[3 * i];
+            latitudes[i] = ((Number) points[3 * i + 1]).doubleValue();
+            longitudes[i] = ((Number) points[3 * i + 2]).doubleValue();
+        }
+        return new ZipCodeGrid(List.of(zipCodes), latitudes, longitudes);
+    }
+}